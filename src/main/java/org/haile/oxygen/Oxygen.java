@@ -5,12 +5,20 @@ import org.haile.oxygen.commands.OxygenCommands;
 import org.haile.oxygen.listeners.PlayerOxygenEventListener;
 import org.haile.oxygen.listeners.PluginReloadListener;
 import org.haile.oxygen.managers.BossBarManager;
+import org.haile.oxygen.managers.DepletionDamageManager;
+import org.haile.oxygen.managers.EquipmentModifierManager;
+import org.haile.oxygen.managers.LowOxygenEffectManager;
 import org.haile.oxygen.managers.NotificationManager;
 import org.haile.oxygen.managers.OxygenDataManager;
 import org.haile.oxygen.managers.OxygenPlayerManager;
 import org.haile.oxygen.managers.RegionChecker;
+import org.haile.oxygen.managers.SealedRoomManager;
 import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.regions.OxygenFlags;
 import org.haile.oxygen.placeholders.OxygenPlaceholderExpansion;
+import org.haile.oxygen.scheduler.OxygenScheduler;
+import org.haile.oxygen.scheduler.OxygenSchedulers;
+import org.haile.oxygen.scheduler.OxygenTask;
 import org.haile.oxygen.tasks.OxygenConsumerTasks;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
@@ -25,13 +33,33 @@ public final class Oxygen extends JavaPlugin {
     private BossBarManager bossBarManager;
     private OxygenDataManager dataManager;
     private NotificationManager notificationManager;
+    private EquipmentModifierManager equipmentModifierManager;
+    private LowOxygenEffectManager effectManager;
+    private DepletionDamageManager damageManager;
+    private SealedRoomManager sealedRoomManager;
     private OxygenConsumerTasks oxygenTask;
     private ConfigSettings configSettings;
     private FileConfiguration config;
-    private int taskId = -1;
+    private OxygenScheduler scheduler;
+    private OxygenTask flushTask;
+
+    @Override
+    public void onLoad() {
+        // WorldGuard only accepts new flags before it is enabled
+        if (getServer().getPluginManager().getPlugin("WorldGuard") != null) {
+            OxygenFlags.register(getLogger());
+        }
+    }
 
     @Override
     public void onEnable() {
+        String missingApi = findMissingServerApi();
+        if (missingApi != null) {
+            getLogger().severe("Oxygen requires " + missingApi + ", disabling");
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+
         try {
             // Load configuration
             loadConfiguration();
@@ -40,13 +68,23 @@ public final class Oxygen extends JavaPlugin {
             configSettings = new ConfigSettings();
             configSettings.loadFromConfig(getConfig(), getLogger());
 
+            // Paper runs everything on the main thread, Folia on the thread owning each region
+            scheduler = OxygenSchedulers.create(this);
+            getLogger().info("Using " + (scheduler.isRegionThreaded() ? "Folia region" : "Bukkit") + " scheduler");
+
             // Initialize managers với ConfigSettings
             getLogger().info("Initializing managers...");
             bossBarManager = new BossBarManager(this, configSettings);
-            dataManager = new OxygenDataManager(this);
+            dataManager = new OxygenDataManager(this, configSettings);
             notificationManager = new NotificationManager(this, configSettings);
-            oxygenManager = new OxygenPlayerManager(bossBarManager, dataManager, configSettings);
+            effectManager = new LowOxygenEffectManager(this, configSettings);
+            oxygenManager = new OxygenPlayerManager(bossBarManager, dataManager, effectManager, configSettings);
+            equipmentModifierManager = new EquipmentModifierManager(this, oxygenManager);
+            damageManager = new DepletionDamageManager(configSettings);
+            sealedRoomManager = new SealedRoomManager(this, configSettings);
             regionChecker = new RegionChecker(this);
+            regionChecker.start();
+            sealedRoomManager.start();
 
             // Register commands and tab completer
             OxygenCommands oxygenCommands = new OxygenCommands(this, oxygenManager);
@@ -55,9 +93,13 @@ public final class Oxygen extends JavaPlugin {
 
             // Register listeners
             getServer().getPluginManager().registerEvents(
-                    new PlayerOxygenEventListener(oxygenManager, bossBarManager), this);
+                    new PlayerOxygenEventListener(oxygenManager, bossBarManager, dataManager), this);
             getServer().getPluginManager().registerEvents(
                     new PluginReloadListener(this), this);
+            getServer().getPluginManager().registerEvents(equipmentModifierManager, this);
+            getServer().getPluginManager().registerEvents(damageManager, this);
+            getServer().getPluginManager().registerEvents(regionChecker, this);
+            getServer().getPluginManager().registerEvents(sealedRoomManager, this);
 
             if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI")) { //
                 new OxygenPlaceholderExpansion(this).register();
@@ -66,6 +108,9 @@ public final class Oxygen extends JavaPlugin {
             // Start oxygen check task
             startOxygenTask();
 
+            // Start write-behind flush task
+            startFlushTask();
+
             getLogger().info("Oxygen plugin has been enabled successfully!");
         } catch (Exception e) {
             getLogger().severe("Error enabling Oxygen: " + e.getMessage());
@@ -78,33 +123,74 @@ public final class Oxygen extends JavaPlugin {
      * Starts the oxygen consumption task
      */
     private void startOxygenTask() {
-        // Cancel existing task if running
-        if (taskId != -1) {
-            getServer().getScheduler().cancelTask(taskId);
-            taskId = -1;
+        // Cancel existing task if running; the new one continues its tick counter,
+        // which the players' last update ticks refer to
+        long startTick = 0L;
+        if (oxygenTask != null) {
+            startTick = oxygenTask.getCurrentTick();
+            oxygenTask.cancel();
+            oxygenTask = null;
         }
 
         // Get decrease rate from ConfigSettings
         int decreaseRate = configSettings.getDecreaseRate();
 
-        // Create new task với ConfigSettings
-        oxygenTask = new OxygenConsumerTasks(this, oxygenManager, regionChecker, notificationManager, configSettings);
-        taskId = oxygenTask.runTaskTimer(this, 0L, decreaseRate).getTaskId();
+        // Create new task với ConfigSettings; it only checks players whose deadline arrived
+        oxygenTask = new OxygenConsumerTasks(this, oxygenManager, regionChecker, notificationManager,
+                configSettings, scheduler, startTick);
+        oxygenTask.start();
 
         getLogger().info("Started oxygen task with rate: " + decreaseRate + " ticks");
     }
 
+    /**
+     * Starts the task that periodically flushes dirty player data to storage
+     */
+    private void startFlushTask() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        // Only reads the concurrent player map, so it can run on the global region
+        int flushInterval = configSettings.getFlushInterval();
+        flushTask = scheduler.runTimer(() -> oxygenManager.flushDirty(), flushInterval, flushInterval);
+
+        getLogger().info("Started data flush task with interval: " + flushInterval + " ticks");
+    }
+
     @Override
     public void onDisable() {
-        // Cancel running task
-        if (taskId != -1) {
-            getServer().getScheduler().cancelTask(taskId);
-            taskId = -1;
+        // Cancel running tasks
+        if (oxygenTask != null) {
+            oxygenTask.cancel();
+            oxygenTask = null;
+        }
+
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        if (regionChecker != null) {
+            regionChecker.stop();
+        }
+
+        if (sealedRoomManager != null) {
+            sealedRoomManager.stop();
+        }
+
+        if (scheduler != null) {
+            scheduler.cancelAll();
+        }
+
+        // Flush pending player data on server shutdown and wait for the storage thread
+        if (oxygenManager != null) {
+            oxygenManager.flushDirty();
         }
 
-        // Save player data on server shutdown
         if (dataManager != null) {
-            dataManager.saveData();
+            dataManager.shutdown(configSettings.getShutdownTimeoutMillis());
         }
 
         // Remove all boss bars
@@ -118,7 +204,8 @@ public final class Oxygen extends JavaPlugin {
     }
 
     /**
-     * Reloads the plugin configuration and restarts tasks
+     * Reloads the plugin configuration and restarts tasks.
+     * Must run on the main thread, or the global region thread on Folia.
      */
     public void reloadPlugin() {
         getLogger().info("Starting plugin reload...");
@@ -134,6 +221,11 @@ public final class Oxygen extends JavaPlugin {
         }
 
         // Reload managers with updated ConfigSettings
+        // Flush pending changes first so reloading from disk does not drop them
+        if (oxygenManager != null) {
+            oxygenManager.flushDirty();
+        }
+
         if (dataManager != null) {
             dataManager.reloadData();
         }
@@ -150,21 +242,37 @@ public final class Oxygen extends JavaPlugin {
             oxygenManager.loadConfiguration();
         }
 
+        if (equipmentModifierManager != null) {
+            equipmentModifierManager.loadConfiguration();
+        }
+
+        if (effectManager != null) {
+            effectManager.loadConfiguration();
+        }
+
         // **FIX: Update all boss bars AFTER managers are reloaded**
         if (bossBarManager != null) {
-            // Remove all existing boss bars first
+            // Recreate boss bars with new configuration, each on the thread that owns the player
             for (Player player : getServer().getOnlinePlayers()) {
-                bossBarManager.removeBossBar(player);
+                scheduler.runForPlayer(player, () -> {
+                    bossBarManager.removeBossBar(player);
+                    bossBarManager.createBossBar(player);
+                    if (oxygenManager != null) {
+                        int currentOxygen = oxygenManager.getOxygen(player);
+                        bossBarManager.updateBossBar(player, currentOxygen);
+                    }
+                });
             }
+        }
 
-            // Recreate boss bars with new configuration
-            for (Player player : getServer().getOnlinePlayers()) {
-                bossBarManager.createBossBar(player);
-                if (oxygenManager != null) {
-                    int currentOxygen = oxygenManager.getOxygen(player);
-                    bossBarManager.updateBossBar(player, currentOxygen);
-                }
-            }
+        // Rebuild the region index with the new poll interval
+        if (regionChecker != null) {
+            regionChecker.start();
+        }
+
+        // Fill every sealed room again with the new generator settings
+        if (sealedRoomManager != null) {
+            sealedRoomManager.start();
         }
 
         // Restart oxygen task with new configuration
@@ -173,9 +281,33 @@ public final class Oxygen extends JavaPlugin {
             startOxygenTask();
         }
 
+        startFlushTask();
+
         getLogger().info("Oxygen plugin configuration reloaded successfully");
     }
 
+    /**
+     * Checks that the server provides the APIs this plugin is built against
+     * @return The server software that is needed, or null if everything is there
+     */
+    private String findMissingServerApi() {
+        // Class name -> what provides it
+        String[][] required = {
+                // Equipment modifiers listen to armor changes
+                {"com.destroystokyo.paper.event.player.PlayerArmorChangeEvent", "Paper"},
+                // Depletion damage uses the drowning damage source added in 1.20.4
+                {"org.bukkit.damage.DamageSource", "Paper 1.20.4 or newer"},
+        };
+        for (String[] api : required) {
+            try {
+                Class.forName(api[0], false, getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return api[1];
+            }
+        }
+        return null;
+    }
+
     /**
      * Loads or creates the configuration file
      */
@@ -230,6 +362,21 @@ public final class Oxygen extends JavaPlugin {
             config.set("display.bossbar.thresholds.low", 30);
         }
 
+        // Keep the old carved pumpkin behaviour for configs without equipment modifiers
+        if (!config.contains("equipment-modifiers")) {
+            config.set("equipment-modifiers.carved-pumpkin.material", "CARVED_PUMPKIN");
+            config.set("equipment-modifiers.carved-pumpkin.slots", new String[]{"HEAD"});
+            config.set("equipment-modifiers.carved-pumpkin.multiplier", 0.2);
+        }
+
+        // Keep the old low oxygen effects for configs without tiers
+        if (!config.contains("low-oxygen-effects")) {
+            config.set("low-oxygen-effects.refresh-before", 20);
+            config.set("low-oxygen-effects.tiers.low.below", 20);
+            config.set("low-oxygen-effects.tiers.low.duration", 100);
+            config.set("low-oxygen-effects.tiers.low.effects", new String[]{"WEAKNESS:1", "SLOW:1", "CONFUSION:3"});
+        }
+
         // Storage settings
         if (!config.contains("storage.type")) {
             config.set("storage.type", "file");
@@ -259,7 +406,31 @@ public final class Oxygen extends JavaPlugin {
         return notificationManager;
     }
 
+    public EquipmentModifierManager getEquipmentModifierManager() {
+        return equipmentModifierManager;
+    }
+
+    public LowOxygenEffectManager getEffectManager() {
+        return effectManager;
+    }
+
+    public DepletionDamageManager getDamageManager() {
+        return damageManager;
+    }
+
+    public SealedRoomManager getSealedRoomManager() {
+        return sealedRoomManager;
+    }
+
     public ConfigSettings getConfigSettings() {
         return configSettings;
     }
+
+    public OxygenConsumerTasks getOxygenTask() {
+        return oxygenTask;
+    }
+
+    public OxygenScheduler getOxygenScheduler() {
+        return scheduler;
+    }
 }
\ No newline at end of file
@@ -2,14 +2,21 @@ package org.haile.oxygen.commands;
 
 import org.bukkit.potion.PotionEffectType;
 import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.managers.OfflineOxygenCache;
+import org.haile.oxygen.managers.OxygenDataManager;
 import org.haile.oxygen.managers.OxygenPlayerManager;
+import org.haile.oxygen.managers.SealedRoomManager;
+import org.haile.oxygen.storage.StorageBackends;
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.CompletionException;
+
 public class OxygenCommands implements CommandExecutor {
     private final OxygenPlayerManager oxygenManager;
     private final Oxygen plugin;
@@ -27,7 +34,7 @@ public class OxygenCommands implements CommandExecutor {
         }
 
         if (args.length < 1) {
-            sender.sendMessage("§cSử dụng: /oxygen <get|set|add|reload> [player] [value]");
+            sender.sendMessage("§cSử dụng: /oxygen <get|set|add|reload|stats|migrate> [player] [value]");
             return true;
         }
 
@@ -37,16 +44,89 @@ public class OxygenCommands implements CommandExecutor {
         if (subCommand.equals("reload")) {
             sender.sendMessage("§eĐang tải lại cấu hình plugin...");
 
-            try {
-                // Use the proper reload method from main plugin class
-                plugin.reloadPlugin();
-                sender.sendMessage("§aĐã tải lại cấu hình và dữ liệu người chơi thành công!");
-            } catch (Exception e) {
-                sender.sendMessage("§cLỗi khi tải lại cấu hình: " + e.getMessage());
-                plugin.getLogger().severe("Error during plugin reload: " + e.getMessage());
-                e.printStackTrace();
+            // On Folia the sender may be on their region thread; the reload touches global state
+            runSync(() -> {
+                try {
+                    // Use the proper reload method from main plugin class
+                    plugin.reloadPlugin();
+                    sender.sendMessage("§aĐã tải lại cấu hình và dữ liệu người chơi thành công!");
+                } catch (Exception e) {
+                    sender.sendMessage("§cLỗi khi tải lại cấu hình: " + e.getMessage());
+                    plugin.getLogger().severe("Error during plugin reload: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            });
+
+            return true;
+        }
+
+        if (subCommand.equals("stats")) {
+            OxygenDataManager dataManager = plugin.getDataManager();
+            sender.sendMessage("§eThống kê lưu trữ Oxygen:");
+            sender.sendMessage("§7- Backend: §f" + dataManager.getBackend().getName());
+            sender.sendMessage("§7- Tác vụ đang chờ: §f" + dataManager.getQueuedTasks());
+            sender.sendMessage("§7- Người chơi chưa lưu: §f" + oxygenManager.getDirtyCount());
+            OfflineOxygenCache offlineCache = oxygenManager.getOfflineCache();
+            sender.sendMessage("§7- Người chơi online trong bộ nhớ: §f" + oxygenManager.getOnlineCount());
+            if (plugin.getOxygenTask() != null) {
+                sender.sendMessage("§7- Người chơi đang tiêu thụ oxy: §f" + plugin.getOxygenTask().getActiveCount()
+                        + " §7(" + plugin.getOxygenTask().getBacklogSize() + " lượt kiểm tra đang chờ)");
+            }
+            sender.sendMessage("§7- Vùng oxy đã index: §f" + plugin.getRegionChecker().getIndexedRegionCount()
+                    + " §7(" + plugin.getRegionChecker().getProvider().getName() + ")");
+            SealedRoomManager sealedRooms = plugin.getSealedRoomManager();
+            sender.sendMessage("§7- Phòng kín: §f" + sealedRooms.getSealedCount() + "/" + sealedRooms.getGeneratorCount()
+                    + " §7máy tạo oxy");
+            sender.sendMessage("§7- Cache offline: §f" + offlineCache.size() + "/" +
+                    plugin.getConfigSettings().getOfflineCacheSize() + " §7(" + offlineCache.getHits() + " trúng, "
+                    + offlineCache.getMisses() + " trượt, " + offlineCache.getEvictions() + " bị loại)");
+            sender.sendMessage("§7- Prefetch: §f" + dataManager.getPrefetchHits() + " trúng, "
+                    + dataManager.getPrefetchMisses() + " trượt §7(" +
+                    String.format("%.1f", dataManager.getPrefetchHitRate() * 100) + "%)");
+            return true;
+        }
+
+        if (subCommand.equals("migrate")) {
+            if (args.length < 3 || args.length > 4 || (args.length == 4 && !args[3].equalsIgnoreCase("restart"))) {
+                sender.sendMessage("§cSử dụng: /oxygen migrate <from> <to> [restart]");
+                return true;
             }
 
+            String from = StorageBackends.normalize(args[1]);
+            String to = StorageBackends.normalize(args[2]);
+            if (from == null || to == null) {
+                sender.sendMessage("§cKiểu lưu trữ không hợp lệ! Có thể dùng: " + String.join(", ", StorageBackends.TYPES));
+                return true;
+            }
+            if (from.equals(to)) {
+                sender.sendMessage("§cKiểu lưu trữ nguồn và đích phải khác nhau!");
+                return true;
+            }
+
+            OxygenDataManager dataManager = plugin.getDataManager();
+            if (dataManager.isMigrating()) {
+                sender.sendMessage("§cĐang có một lần chuyển dữ liệu khác chạy!");
+                return true;
+            }
+
+            // Write pending changes first so the source holds the latest levels
+            oxygenManager.flushDirty();
+            sender.sendMessage("§eBắt đầu chuyển dữ liệu từ " + from + " sang " + to + "...");
+
+            dataManager.migrate(from, to, args.length == 4, (migrated, rate) ->
+                    runSync(() -> sender.sendMessage("§7Đã chuyển §f" + migrated + "§7 người chơi (§f"
+                            + String.format("%.0f", rate) + "§7/giây)")))
+                    .whenComplete((copied, error) -> runSync(() -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            sender.sendMessage("§cChuyển dữ liệu thất bại: " + cause.getMessage()
+                                    + ". Chạy lại lệnh để tiếp tục.");
+                        } else {
+                            sender.sendMessage("§aĐã chuyển xong " + copied + " người chơi từ " + from + " sang " + to
+                                    + ". Đổi storage.type thành " + to + " rồi dùng /oxygen reload.");
+                        }
+                    }));
             return true;
         }
 
@@ -58,7 +138,7 @@ public class OxygenCommands implements CommandExecutor {
 
             Player target = Bukkit.getPlayer(args[1]);
             if (target == null) {
-                sender.sendMessage("§cNgười chơi " + args[1] + " không online!");
+                sendOfflineOxygen(sender, args[1]);
                 return true;
             }
 
@@ -154,7 +234,39 @@ public class OxygenCommands implements CommandExecutor {
             return true;
         }
 
-        sender.sendMessage("§cSử dụng: /oxygen <get|set|add|reload> [player] [value]");
+        sender.sendMessage("§cSử dụng: /oxygen <get|set|add|reload|stats|migrate> [player] [value]");
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a task on the main thread (the global region on Folia) unless the plugin is being disabled
+     */
+    private void runSync(Runnable task) {
+        plugin.getOxygenScheduler().runGlobal(task);
+    }
+
+    /**
+     * Looks up an offline player's oxygen through the offline cache,
+     * loading it from storage without blocking the main thread
+     */
+    private void sendOfflineOxygen(CommandSender sender, String playerName) {
+        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayerIfCached(playerName);
+        if (offlinePlayer == null) {
+            sender.sendMessage("§cKhông tìm thấy người chơi " + playerName + "!");
+            return;
+        }
+
+        int maxOxygen = oxygenManager.getMaxOxygen();
+        oxygenManager.getOfflineCache().get(offlinePlayer.getUniqueId()).whenComplete((record, error) ->
+                runSync(() -> {
+                    if (error != null) {
+                        sender.sendMessage("§cLỗi khi tải dữ liệu của " + playerName + "!");
+                    } else if (record == null) {
+                        sender.sendMessage("§cNgười chơi " + playerName + " chưa có dữ liệu oxygen!");
+                    } else {
+                        sender.sendMessage("§aOxygen của " + playerName + " (offline): "
+                                + record.getOxygenLevel() + "/" + maxOxygen);
+                    }
+                }));
+    }
+}
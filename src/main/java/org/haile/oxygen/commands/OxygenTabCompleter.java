@@ -7,6 +7,7 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.haile.oxygen.Oxygen;
 import org.haile.oxygen.managers.OxygenPlayerManager;
+import org.haile.oxygen.storage.StorageBackends;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -38,7 +39,7 @@ public class OxygenTabCompleter implements TabCompleter {
 
         if (args.length == 1) {
             // First argument: sub-commands
-            List<String> subCommands = Arrays.asList("get", "set", "add", "reload");
+            List<String> subCommands = Arrays.asList("get", "set", "add", "reload", "stats", "migrate");
 
             // Filter based on what user has typed
             String input = args[0].toLowerCase();
@@ -50,7 +51,13 @@ public class OxygenTabCompleter implements TabCompleter {
             // Second argument: player names (for get, set, add commands)
             String subCommand = args[0].toLowerCase();
 
-            if (subCommand.equals("get") || subCommand.equals("set") || subCommand.equals("add")) {
+            if (subCommand.equals("migrate")) {
+                String input = args[1].toLowerCase();
+                completions = StorageBackends.TYPES.stream()
+                        .filter(type -> type.startsWith(input))
+                        .collect(Collectors.toList());
+
+            } else if (subCommand.equals("get") || subCommand.equals("set") || subCommand.equals("add")) {
                 String input = args[1].toLowerCase();
 
                 // Get online player names
@@ -65,7 +72,13 @@ public class OxygenTabCompleter implements TabCompleter {
             String subCommand = args[0].toLowerCase();
             String playerName = args[1];
 
-            if (subCommand.equals("set")) {
+            if (subCommand.equals("migrate")) {
+                String input = args[2].toLowerCase();
+                completions = StorageBackends.TYPES.stream()
+                        .filter(type -> type.startsWith(input))
+                        .collect(Collectors.toList());
+
+            } else if (subCommand.equals("set")) {
                 // Suggest common oxygen values for set command
                 List<String> suggestions = Arrays.asList("0", "25", "50", "75", "100");
                 String input = args[2];
@@ -117,6 +130,10 @@ public class OxygenTabCompleter implements TabCompleter {
                         .sorted() // Sort suggestions
                         .collect(Collectors.toList());
             }
+        } else if (args.length == 4 && args[0].equalsIgnoreCase("migrate")) {
+            if ("restart".startsWith(args[3].toLowerCase())) {
+                completions.add("restart");
+            }
         }
 
         return completions;
@@ -0,0 +1,68 @@
+package org.haile.oxygen.events;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+/**
+ * Called before a player out of oxygen takes depletion damage.
+ * All oxygen damage goes through this event, so other plugins can react to it
+ * without inspecting every damage event. The damage itself is dealt as drowning.
+ */
+public class OxygenDamageEvent extends PlayerEvent implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final long ticksAtZero;
+    private double damage;
+    private boolean cancelled;
+
+    public OxygenDamageEvent(Player player, double damage, long ticksAtZero) {
+        super(player);
+        this.damage = damage;
+        this.ticksAtZero = ticksAtZero;
+    }
+
+    /**
+     * Gets the damage that will be dealt, after scaling
+     * @return Damage in half hearts
+     */
+    public double getDamage() {
+        return damage;
+    }
+
+    /**
+     * Sets the damage that will be dealt
+     * @param damage Damage in half hearts
+     */
+    public void setDamage(double damage) {
+        this.damage = damage;
+    }
+
+    /**
+     * Gets how long the player has been out of oxygen
+     * @return Ticks since oxygen reached 0
+     */
+    public long getTicksAtZero() {
+        return ticksAtZero;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
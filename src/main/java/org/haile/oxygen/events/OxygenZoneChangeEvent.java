@@ -0,0 +1,50 @@
+package org.haile.oxygen.events;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+/**
+ * Called when a player enters or leaves a spaceship region.
+ * Players start outside every region, so a player who joins inside one gets an
+ * enter. Only fired when the region result of a new block differs from the
+ * previous block, on the thread that owns the player.
+ */
+public class OxygenZoneChangeEvent extends PlayerEvent {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final boolean entered;
+    private final Location location;
+
+    public OxygenZoneChangeEvent(Player player, boolean entered, Location location) {
+        super(player);
+        this.entered = entered;
+        this.location = location;
+    }
+
+    /**
+     * Checks if the player entered a spaceship region
+     * @return True on enter, false on leave
+     */
+    public boolean isEntered() {
+        return entered;
+    }
+
+    /**
+     * Gets the location the transition was detected at, e.g. a teleport destination
+     * @return The location
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
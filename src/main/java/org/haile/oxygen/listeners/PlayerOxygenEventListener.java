@@ -1,9 +1,12 @@
 package org.haile.oxygen.listeners;
 
 import org.haile.oxygen.managers.BossBarManager;
+import org.haile.oxygen.managers.OxygenDataManager;
 import org.haile.oxygen.managers.OxygenPlayerManager;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
@@ -11,10 +14,21 @@ import org.bukkit.event.player.PlayerRespawnEvent;
 public class PlayerOxygenEventListener implements Listener {
     private final OxygenPlayerManager oxygenManager;
     private final BossBarManager bossBarManager;
+    private final OxygenDataManager dataManager;
 
-    public PlayerOxygenEventListener(OxygenPlayerManager oxygenManager, BossBarManager bossBarManager) {
+    public PlayerOxygenEventListener(OxygenPlayerManager oxygenManager, BossBarManager bossBarManager,
+                                     OxygenDataManager dataManager) {
         this.oxygenManager = oxygenManager;
         this.bossBarManager = bossBarManager;
+        this.dataManager = dataManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Fetch storage off the main thread so the join only attaches the record
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            dataManager.prefetch(event.getUniqueId());
+        }
     }
 
     @EventHandler
@@ -33,9 +47,9 @@ public class PlayerOxygenEventListener implements Listener {
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
-        // Save oxygen level before removing boss bar
-        // Note: We don't need to explicitly save here since it's already saved in setOxygen
-        // But we could add it for extra safety
+        // Save the player's pending change and move them to the offline cache
+        oxygenManager.unloadPlayer(event.getPlayer());
+        dataManager.invalidatePrefetch(event.getPlayer().getUniqueId());
         bossBarManager.removeBossBar(event.getPlayer());
     }
-}
\ No newline at end of file
+}
@@ -8,12 +8,13 @@ import org.haile.oxygen.Oxygen;
 import org.haile.oxygen.models.ConfigSettings;
 import org.haile.oxygen.utils.FormatUtils;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BossBarManager {
-    private final Map<UUID, BossBar> playerBossBars = new HashMap<>();
+    // Concurrent: on Folia boss bars are updated from each player's region thread
+    private final Map<UUID, BossBar> playerBossBars = new ConcurrentHashMap<>();
     private final Oxygen plugin;
     private final ConfigSettings configSettings;
 
@@ -0,0 +1,84 @@
+package org.haile.oxygen.managers;
+
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.damage.DamageType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.haile.oxygen.events.OxygenDamageEvent;
+import org.haile.oxygen.models.ConfigSettings;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deals the damage of players who are out of oxygen.
+ * Oxygen checks only decide who is depleted and for how long; the damage of
+ * everyone due in a tick is dealt in one pass after all checks ran. Every hit
+ * fires an {@link OxygenDamageEvent} and uses the same drowning damage source,
+ * and deaths it causes get the configured death message.
+ */
+public class DepletionDamageManager implements Listener {
+    private static final double TICKS_PER_SECOND = 20.0;
+
+    private final ConfigSettings configSettings;
+    // Plugins cannot register damage types, so EntityDamageEvent sees plain drowning; OxygenDamageEvent tells them apart
+    private final DamageSource damageSource = DamageSource.builder(DamageType.DROWN).build();
+
+    // Players currently being damaged, so their death event knows it was oxygen
+    private final Set<UUID> damaging = ConcurrentHashMap.newKeySet();
+
+    public DepletionDamageManager(ConfigSettings configSettings) {
+        this.configSettings = configSettings;
+    }
+
+    /**
+     * Gets the damage for a player who has been out of oxygen for a while. Safe to call from any thread.
+     * @param ticksAtZero Ticks since the player's oxygen reached 0
+     * @return Base damage scaled by the time spent at 0, up to the configured maximum
+     */
+    public double getDamage(long ticksAtZero) {
+        double scale = 1.0 + configSettings.getDamageScalingPerSecond() * (ticksAtZero / TICKS_PER_SECOND);
+        return configSettings.getDamageAmount() * Math.min(configSettings.getDamageScalingMax(), scale);
+    }
+
+    /**
+     * Damages a depleted player. Must run on the thread that owns the player.
+     * @param player The player
+     * @param damage Damage decided by the oxygen check
+     * @param ticksAtZero Ticks since the player's oxygen reached 0
+     */
+    public void damage(Player player, double damage, long ticksAtZero) {
+        if (player.getHealth() <= 0) {
+            return;
+        }
+
+        OxygenDamageEvent event = new OxygenDamageEvent(player, damage, ticksAtZero);
+        if (!event.callEvent() || event.getDamage() <= 0) {
+            return;
+        }
+
+        damaging.add(player.getUniqueId());
+        try {
+            // Not capped at the player's health, so absorption cannot soak up a lethal hit
+            player.damage(event.getDamage(), damageSource);
+        } finally {
+            damaging.remove(player.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPlayerDeath(PlayerDeathEvent event) {
+        // Fired from inside player.damage, so only deaths caused right now by oxygen are in the set
+        String message = configSettings.getDeathMessage();
+        if (message == null || message.isEmpty() || !damaging.contains(event.getEntity().getUniqueId())) {
+            return;
+        }
+        event.deathMessage(MiniMessage.miniMessage().deserialize(
+                message.replace("{player}", event.getEntity().getName())));
+    }
+}
@@ -0,0 +1,210 @@
+package org.haile.oxygen.managers;
+
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemBreakEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.models.EquipmentModifier;
+import org.haile.oxygen.models.OxygenPlayer;
+import org.haile.oxygen.tasks.OxygenConsumerTasks;
+import org.haile.oxygen.utils.ConfigUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of equipment that changes oxygen consumption.
+ * Each player's combined multiplier is cached on their OxygenPlayer and only
+ * recomputed when their armor or inventory changes, so oxygen checks just read it.
+ */
+public class EquipmentModifierManager implements Listener {
+    private static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+
+    private final Oxygen plugin;
+    private final OxygenPlayerManager oxygenManager;
+
+    private volatile EquipmentModifier[] modifiers = new EquipmentModifier[0];
+    // Whether any modifier looks at the hands; inventory events are ignored otherwise
+    private volatile boolean watchesHands;
+
+    // Players with a recompute already scheduled for the next tick
+    private final Set<UUID> pendingUpdates = ConcurrentHashMap.newKeySet();
+
+    public EquipmentModifierManager(Oxygen plugin, OxygenPlayerManager oxygenManager) {
+        this.plugin = plugin;
+        this.oxygenManager = oxygenManager;
+        loadConfiguration();
+    }
+
+    /**
+     * Loads equipment modifiers from config and recomputes every online player
+     */
+    public void loadConfiguration() {
+        List<EquipmentModifier> loaded = ConfigUtils.loadEquipmentModifiers(plugin.getConfig(), plugin.getLogger());
+
+        boolean hands = false;
+        for (EquipmentModifier modifier : loaded) {
+            hands |= modifier.getSlots().contains(EquipmentSlot.HAND) || modifier.getSlots().contains(EquipmentSlot.OFF_HAND);
+        }
+        modifiers = loaded.toArray(new EquipmentModifier[0]);
+        watchesHands = hands;
+
+        if (plugin.getOxygenScheduler() != null) {
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                scheduleUpdate(player);
+            }
+        }
+    }
+
+    /**
+     * Computes the combined consumption multiplier of a player's equipment.
+     * Must run on the thread that owns the player.
+     * @param player The player
+     * @return Product of the multipliers of all matching modifiers, 1.0 if none match
+     */
+    public double computeMultiplier(Player player) {
+        EquipmentModifier[] current = modifiers;
+        if (current.length == 0) {
+            return 1.0;
+        }
+
+        PlayerInventory inventory = player.getInventory();
+        double multiplier = 1.0;
+        for (EquipmentSlot slot : SLOTS) {
+            if (!watchesHands && (slot == EquipmentSlot.HAND || slot == EquipmentSlot.OFF_HAND)) {
+                continue;
+            }
+
+            ItemStack item = inventory.getItem(slot);
+            if (item == null) {
+                continue;
+            }
+            for (EquipmentModifier modifier : current) {
+                if (modifier.matches(slot, item)) {
+                    multiplier *= modifier.getMultiplier();
+                }
+            }
+        }
+        return multiplier;
+    }
+
+    /**
+     * Recomputes and caches a player's multiplier, and moves their next oxygen check if it changed.
+     * Must run on the thread that owns the player.
+     * @param player The player
+     */
+    public void update(Player player) {
+        OxygenPlayer oxygenPlayer = oxygenManager.getOxygenPlayer(player);
+        if (oxygenPlayer == null) {
+            return;
+        }
+
+        double multiplier = computeMultiplier(player);
+        if (multiplier == oxygenPlayer.getConsumptionMultiplier()) {
+            return;
+        }
+        oxygenPlayer.setConsumptionMultiplier(multiplier);
+
+        OxygenConsumerTasks oxygenTask = plugin.getOxygenTask();
+        if (oxygenTask != null) {
+            oxygenTask.reschedule(player);
+        }
+    }
+
+    /**
+     * Recomputes a player's multiplier on the next tick, once the event that changed their inventory is done
+     * @param player The player
+     */
+    private void scheduleUpdate(Player player) {
+        if (pendingUpdates.add(player.getUniqueId())) {
+            plugin.getOxygenScheduler().runForPlayerLater(player, () -> {
+                pendingUpdates.remove(player.getUniqueId());
+                update(player);
+            }, () -> pendingUpdates.remove(player.getUniqueId()), 1L);
+        }
+    }
+
+    private void scheduleHandUpdate(HumanEntity entity) {
+        if (watchesHands && entity instanceof Player) {
+            scheduleUpdate((Player) entity);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Oxygen data is loaded by then
+        update(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        pendingUpdates.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        scheduleUpdate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onArmorChange(PlayerArmorChangeEvent event) {
+        // Fired after the armor slot changed
+        update(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        scheduleHandUpdate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSwapHandItems(PlayerSwapHandItemsEvent event) {
+        scheduleHandUpdate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        scheduleHandUpdate(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        scheduleHandUpdate(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDropItem(PlayerDropItemEvent event) {
+        scheduleHandUpdate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickupItem(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof HumanEntity) {
+            scheduleHandUpdate((HumanEntity) event.getEntity());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        // Armor breaking is also reported as an armor change; this covers held items
+        scheduleHandUpdate(event.getPlayer());
+    }
+}
@@ -0,0 +1,152 @@
+package org.haile.oxygen.managers;
+
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.models.EffectTier;
+import org.haile.oxygen.models.OxygenPlayer;
+import org.haile.oxygen.utils.ConfigUtils;
+
+import java.util.List;
+
+/**
+ * Keeps low oxygen potion effects in sync with each player's oxygen level.
+ * The applied tier and its refresh tick are tracked on the OxygenPlayer, so
+ * effects are given once when a player enters a tier, refreshed shortly
+ * before they run out and removed when the player leaves the tier, instead
+ * of being re-added on every oxygen decrease.
+ */
+public class LowOxygenEffectManager {
+    private final Oxygen plugin;
+    private final ConfigSettings configSettings;
+
+    // Sorted from the lowest threshold up
+    private volatile EffectTier[] tiers = new EffectTier[0];
+
+    public LowOxygenEffectManager(Oxygen plugin, ConfigSettings configSettings) {
+        this.plugin = plugin;
+        this.configSettings = configSettings;
+        loadConfiguration();
+    }
+
+    /**
+     * Loads the effect tiers from config. Players keep their old tier until their next check replaces it.
+     */
+    public void loadConfiguration() {
+        List<EffectTier> loaded = ConfigUtils.loadEffectTiers(plugin.getConfig(), plugin.getLogger());
+        tiers = loaded.toArray(new EffectTier[0]);
+    }
+
+    /**
+     * Finds the most severe tier for an oxygen level. Safe to call from any thread.
+     * @param oxygenLevel Whole oxygen level
+     * @return Matching tier, or null if the level is above every threshold
+     */
+    public EffectTier findTier(int oxygenLevel) {
+        for (EffectTier tier : tiers) {
+            if (tier.appliesTo(oxygenLevel)) {
+                return tier;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a player's effects need to change. Safe to call from any thread.
+     * @param applied Tier currently applied, may be null
+     * @param refreshTick Refresh tick of the applied tier
+     * @param target Tier the player should be in, may be null
+     * @param now Current plugin tick
+     * @return True if {@link #apply} has something to do
+     */
+    public boolean needsUpdate(EffectTier applied, long refreshTick, EffectTier target, long now) {
+        return applied != target || (target != null && now >= refreshTick);
+    }
+
+    /**
+     * Gets the tick at which freshly applied effects of a tier must be refreshed
+     * @param tier The tier
+     * @param now Tick the effects are applied at
+     * @return Refresh tick, always after now
+     */
+    public long getRefreshTick(EffectTier tier, long now) {
+        int lead = Math.min(configSettings.getEffectRefreshTicks(), tier.getDuration() / 2);
+        return now + Math.max(1, tier.getDuration() - lead);
+    }
+
+    /**
+     * Moves a player into a tier, or refreshes the current one. Must run on the thread that owns the player.
+     * @param player The player
+     * @param oxygenPlayer The player's data
+     * @param target Tier the player should be in, may be null
+     * @param now Current plugin tick
+     */
+    public void apply(Player player, OxygenPlayer oxygenPlayer, EffectTier target, long now) {
+        EffectTier applied = oxygenPlayer.getEffectTier();
+        if (applied != null && applied != target) {
+            removeEffects(player, applied, target);
+        }
+
+        if (target == null) {
+            oxygenPlayer.setEffectTier(null, 0L);
+            return;
+        }
+
+        for (PotionEffect effect : target.getEffects()) {
+            player.addPotionEffect(effect);
+        }
+        oxygenPlayer.setEffectTier(target, getRefreshTick(target, now));
+    }
+
+    /**
+     * Removes the effects of a player's tier once their oxygen is back above its threshold,
+     * e.g. after a refill. Must run on the thread that owns the player.
+     * @param player The player
+     * @param oxygenPlayer The player's data
+     * @param oxygenLevel The player's new whole oxygen level
+     */
+    public void onOxygenChanged(Player player, OxygenPlayer oxygenPlayer, int oxygenLevel) {
+        EffectTier applied = oxygenPlayer.getEffectTier();
+        if (applied != null && !applied.appliesTo(oxygenLevel)) {
+            removeEffects(player, applied, null);
+            oxygenPlayer.setEffectTier(null, 0L);
+        }
+    }
+
+    /**
+     * Forgets a player's tier without touching their effects, e.g. after death already cleared them
+     * @param oxygenPlayer The player's data
+     */
+    public void forget(OxygenPlayer oxygenPlayer) {
+        oxygenPlayer.setEffectTier(null, 0L);
+    }
+
+    /**
+     * Removes the effects of a tier that the next tier does not give again.
+     * Effects with another amplifier or a longer duration came from somewhere else and are kept.
+     */
+    private void removeEffects(Player player, EffectTier tier, EffectTier next) {
+        for (PotionEffect effect : tier.getEffects()) {
+            if (next != null && givesEffect(next, effect)) {
+                continue;
+            }
+
+            PotionEffect active = player.getPotionEffect(effect.getType());
+            if (active != null && active.getAmplifier() == effect.getAmplifier()
+                    && active.getDuration() <= tier.getDuration()) {
+                player.removePotionEffect(effect.getType());
+            }
+        }
+    }
+
+    private static boolean givesEffect(EffectTier tier, PotionEffect effect) {
+        for (PotionEffect other : tier.getEffects()) {
+            // A lower amplifier would not replace the active effect, so only the same one counts
+            if (other.getType() == effect.getType() && other.getAmplifier() == effect.getAmplifier()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
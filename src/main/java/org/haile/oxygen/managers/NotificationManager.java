@@ -11,9 +11,12 @@ import org.haile.oxygen.utils.ConfigUtils;
 import org.haile.oxygen.utils.FormatUtils;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Updated NotificationManager with custom sound support
@@ -22,11 +25,11 @@ public class NotificationManager {
     private final Oxygen plugin;
     private final ConfigSettings configSettings;
 
-    // Lưu trữ mức oxy cuối cùng của mỗi người chơi để theo dõi khi vượt qua ngưỡng
-    private final Map<UUID, Integer> lastOxygenLevels = new HashMap<>();
-
     // Warning levels configuration
-    private final Map<String, WarningLevel> warningLevels = new HashMap<>();
+    private final Map<String, WarningLevel> warningLevels = new ConcurrentHashMap<>();
+
+    // Bản sao dạng mảng của warningLevels để duyệt mỗi lần giảm oxy mà không tạo iterator
+    private volatile WarningLevel[] warningLevelArray = new WarningLevel[0];
 
     public NotificationManager(Oxygen plugin, ConfigSettings configSettings) {
         this.plugin = plugin;
@@ -40,6 +43,7 @@ public class NotificationManager {
     public void loadConfiguration() {
         // Clear existing warning levels
         warningLevels.clear();
+        warningLevelArray = new WarningLevel[0];
 
         // Check if notifications are enabled from ConfigSettings
         if (!configSettings.isNotificationsEnabled()) {
@@ -50,40 +54,54 @@ public class NotificationManager {
         FileConfiguration config = plugin.getConfig();
         Map<String, WarningLevel> loadedWarningLevels = ConfigUtils.loadWarningLevels(config, plugin.getLogger());
         warningLevels.putAll(loadedWarningLevels);
+        warningLevelArray = warningLevels.values().toArray(new WarningLevel[0]);
 
         plugin.getLogger().info("Loaded " + warningLevels.size() + " warning levels");
     }
 
     /**
-     * Kiểm tra xem người chơi có nên nhận cảnh báo không
-     * Chỉ gửi cảnh báo khi vừa vượt qua ngưỡng (giảm xuống dưới ngưỡng)
+     * Tìm các ngưỡng cảnh báo vừa bị vượt qua. Không gọi Bukkit API nên có thể chạy ngoài main thread.
+     * Chỉ gửi cảnh báo khi vừa vượt qua ngưỡng (giảm xuống dưới ngưỡng); mức oxy lần trước được lưu
+     * trong OxygenPlayer.
      *
-     * @param player Người chơi
+     * @param lastOxygen Mức oxy lần kiểm tra trước
      * @param oxygenLevel Mức oxy hiện tại
+     * @return Các cảnh báo cần gửi, rỗng nếu không có
      */
-    public void checkAndSendWarnings(Player player, int oxygenLevel) {
-        if (!configSettings.isNotificationsEnabled() || warningLevels.isEmpty()) {
-            return;
+    public List<WarningLevel> findCrossedWarnings(int lastOxygen, int oxygenLevel) {
+        WarningLevel[] levels = warningLevelArray;
+        if (!configSettings.isNotificationsEnabled() || levels.length == 0) {
+            return Collections.emptyList();
         }
 
-        UUID playerUUID = player.getUniqueId();
-
-        // Lấy mức oxy cuối cùng đã lưu
-        int lastOxygen = lastOxygenLevels.getOrDefault(playerUUID, configSettings.getMaxOxygenLevel());
-
-        // Lưu mức oxy hiện tại để so sánh lần sau
-        lastOxygenLevels.put(playerUUID, oxygenLevel);
-
+        List<WarningLevel> crossed = null;
         // Kiểm tra từng ngưỡng cảnh báo
-        for (WarningLevel warning : warningLevels.values()) {
+        for (WarningLevel warning : levels) {
             int threshold = warning.getOxygenLevel();
 
             // Chỉ gửi cảnh báo khi oxy vừa vượt qua ngưỡng (giảm xuống dưới ngưỡng)
             // Điều kiện: Mức cũ trên ngưỡng, mức mới dưới hoặc bằng ngưỡng
             if (lastOxygen > threshold && oxygenLevel <= threshold) {
-                sendWarning(player, warning, oxygenLevel);
+                if (crossed == null) {
+                    crossed = new ArrayList<>(2);
+                }
+                crossed.add(warning);
             }
         }
+        return crossed != null ? crossed : Collections.emptyList();
+    }
+
+    /**
+     * Gửi các cảnh báo đã tính bằng {@link #findCrossedWarnings(int, int)}
+     *
+     * @param player Người chơi
+     * @param warnings Các cảnh báo cần gửi
+     * @param oxygenLevel Mức oxy hiển thị trong cảnh báo
+     */
+    public void sendWarnings(Player player, List<WarningLevel> warnings, int oxygenLevel) {
+        for (WarningLevel warning : warnings) {
+            sendWarning(player, warning, oxygenLevel);
+        }
     }
 
     /**
@@ -0,0 +1,160 @@
+package org.haile.oxygen.managers;
+
+import org.haile.oxygen.models.OxygenRecord;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded LRU of offline players' oxygen data.
+ * Entries are added when a player quits and loaded lazily from storage when an
+ * offline player is looked up; the least recently used entry is evicted once
+ * the limit is reached. May be queried from async threads (e.g. placeholders).
+ */
+public class OfflineOxygenCache {
+    private final OxygenDataManager dataManager;
+    private final LinkedHashMap<UUID, OxygenRecord> entries;
+    private final Map<UUID, CompletableFuture<OxygenRecord>> loading = new ConcurrentHashMap<>();
+    private int maxSize;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public OfflineOxygenCache(OxygenDataManager dataManager, int maxSize) {
+        this.dataManager = dataManager;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, OxygenRecord> eldest) {
+                if (size() > OfflineOxygenCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached record, or starts loading it from storage on a miss
+     * @param playerId The offline player
+     * @return The cached record or null while it is being loaded
+     */
+    public OxygenRecord getOrLoad(UUID playerId) {
+        synchronized (this) {
+            OxygenRecord record = entries.get(playerId);
+            if (record != null) {
+                hits++;
+                return record;
+            }
+            misses++;
+        }
+        load(playerId);
+        return null;
+    }
+
+    /**
+     * Gets a record, loading it from storage on a miss
+     * @param playerId The offline player
+     * @return Future completed with the record, or null if the player has no saved data
+     */
+    public CompletableFuture<OxygenRecord> get(UUID playerId) {
+        synchronized (this) {
+            OxygenRecord record = entries.get(playerId);
+            if (record != null) {
+                hits++;
+                return CompletableFuture.completedFuture(record);
+            }
+            misses++;
+        }
+        return load(playerId);
+    }
+
+    private CompletableFuture<OxygenRecord> load(UUID playerId) {
+        // Concurrent lookups of the same player share one storage read
+        CompletableFuture<OxygenRecord> future = new CompletableFuture<>();
+        CompletableFuture<OxygenRecord> pending = loading.putIfAbsent(playerId, future);
+        if (pending != null) {
+            return pending;
+        }
+
+        dataManager.loadRecordAsync(playerId).whenComplete((record, error) -> {
+            if (record != null) {
+                synchronized (this) {
+                    // A quit during the load already stored a newer record
+                    if (maxSize > 0) {
+                        entries.putIfAbsent(playerId, record);
+                    }
+                }
+            }
+            loading.remove(playerId, future);
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(record);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stores the final record of a player who went offline
+     * @param record The record
+     */
+    public synchronized void put(OxygenRecord record) {
+        if (maxSize > 0) {
+            entries.put(record.getPlayerId(), record);
+        }
+    }
+
+    /**
+     * Removes a player that is moving back to the online tier
+     * @param playerId The player
+     * @return The cached record or null if not cached
+     */
+    public synchronized OxygenRecord remove(UUID playerId) {
+        return entries.remove(playerId);
+    }
+
+    /**
+     * Changes the size limit, evicting the least recently used entries if needed
+     * @param maxSize New limit
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        Iterator<OxygenRecord> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops every entry, e.g. after the storage backend changed
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
@@ -1,23 +1,64 @@
 package org.haile.oxygen.managers;
 
 import org.bukkit.entity.Player;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.models.OxygenRecord;
+import org.haile.oxygen.storage.StorageBackend;
+import org.haile.oxygen.storage.StorageBackends;
+import org.haile.oxygen.storage.StorageMigration;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public class OxygenDataManager {
     private final Oxygen plugin;
-    private File dataFile;
-    private FileConfiguration dataConfig;
+    private final ConfigSettings configSettings;
 
-    public OxygenDataManager(Oxygen plugin) {
+    // Single storage thread. A full queue rejects the task so disk I/O never runs on the
+    // caller; saves stay coalesced in the backend's pending batch and are retried
+    private final ThreadPoolExecutor storageExecutor;
+
+    private volatile StorageBackend backend;
+    // storage.type the current backend was created from, reopened if a reload fails
+    private volatile String backendType;
+    private volatile CompletableFuture<Void> loadFuture;
+
+    // Records fetched during async pre-login, consumed on join
+    private static final long PREFETCH_TIMEOUT_MILLIS = 5000L;
+    private final Map<UUID, PrefetchedRecord> prefetched = new ConcurrentHashMap<>();
+    private final AtomicLong prefetchHits = new AtomicLong();
+    private final AtomicLong prefetchMisses = new AtomicLong();
+
+    private volatile StorageMigration migration;
+    private volatile Thread migrationThread;
+    private volatile boolean shuttingDown;
+    private final AtomicBoolean migrationRunning = new AtomicBoolean();
+
+    public OxygenDataManager(Oxygen plugin, ConfigSettings configSettings) {
         this.plugin = plugin;
-        this.dataFile = new File(plugin.getDataFolder(), "playerdata.yml");
+        this.configSettings = configSettings;
+
+        this.storageExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(configSettings.getStorageQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Oxygen-Storage");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
 
         // Initialize data storage
         loadData();
@@ -32,58 +73,152 @@ public class OxygenDataManager {
     }
 
     /**
-     * Initializes the data storage
+     * Opens the backend selected by storage.type on the storage thread
+     * @return Future completed once the backend is ready
      */
-    public void loadData() {
-        // Create data folder if it doesn't exist
-        if (!plugin.getDataFolder().exists()) {
-            plugin.getDataFolder().mkdirs();
-        }
+    public CompletableFuture<Void> loadData() {
+        backendType = configSettings.getStorageType();
+        backend = StorageBackends.create(backendType, plugin, configSettings, storageExecutor);
+        loadFuture = backend.init();
+        loadFuture.exceptionally(error -> {
+            plugin.getLogger().log(Level.SEVERE, "Could not open " + backend.getName() + " storage", error);
+            return null;
+        });
+        return loadFuture;
+    }
 
-        // Create data file if it doesn't exist
-        if (!dataFile.exists()) {
-            try {
-                dataFile.createNewFile();
-                plugin.getLogger().info("Created new playerdata.yml file");
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not create playerdata.yml", e);
-            }
+    /**
+     * Closes the current backend and opens the one selected by the reloaded config.
+     * Writes already queued on the old backend finish before it is closed, and saves made
+     * meanwhile wait for the new backend. If it cannot be opened, the previous storage
+     * type is opened again instead.
+     * @return Future completed once the new backend, or the previous one, is ready
+     */
+    public CompletableFuture<Void> reloadData() {
+        StorageBackend previous = backend;
+        String previousType = backendType;
+        String type = configSettings.getStorageType();
+        StorageBackend candidate = StorageBackends.create(type, plugin, configSettings, storageExecutor);
+
+        // Close before opening, so two backends never have the same files open
+        CompletableFuture<Void> future = previous.close()
+                .thenCompose(ignored -> candidate.init())
+                .handle((ignored, error) -> {
+                    if (error == null) {
+                        backendType = type;
+                        backend = candidate;
+                        plugin.getLogger().info("Reloaded player data using " + candidate.getName() + " storage");
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+
+                    plugin.getLogger().log(Level.SEVERE, "Could not open " + candidate.getName()
+                            + " storage, keeping " + previous.getName() + " storage", error);
+                    candidate.close();
+                    StorageBackend restored = StorageBackends.create(previousType, plugin, configSettings, storageExecutor);
+                    backend = restored;
+                    return restored.init();
+                })
+                .thenCompose(init -> init);
+        loadFuture = future;
+        future.exceptionally(error -> {
+            plugin.getLogger().log(Level.SEVERE, "Could not reopen " + backend.getName() + " storage", error);
+            return null;
+        });
+        return future;
+    }
+
+    /**
+     * Queues an immutable snapshot of player levels to be written off the main thread
+     * @param records The records to save
+     * @return Future completed once the records are durably stored
+     */
+    public CompletableFuture<Void> saveOxygenLevels(Collection<OxygenRecord> records) {
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
 
-        // Load data config
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
-        plugin.getLogger().info("Loaded player data from playerdata.yml");
+        CompletableFuture<Void> ready = loadFuture;
+        if (ready == null || ready.isDone()) {
+            return backend.saveMany(records);
+        }
+        // A reload is switching backends: save to whichever one ends up open
+        return ready.exceptionally(error -> null)
+                .thenCompose(ignored -> backend.saveMany(records));
     }
 
     /**
-     * Reloads data from file
+     * Fetches a player's record into the staging cache.
+     * Called from the async pre-login thread, so it may block on storage.
+     * @param playerId The player about to join
      */
-    public void reloadData() {
-        dataFile = new File(plugin.getDataFolder(), "playerdata.yml");
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
-        plugin.getLogger().info("Reloaded player data");
+    public void prefetch(UUID playerId) {
+        // Drop entries of players who never completed their login
+        long now = System.currentTimeMillis();
+        prefetched.values().removeIf(entry -> entry.expiresAt < now);
+
+        try {
+            awaitLoaded();
+            OxygenRecord record = backend.loadMany(Collections.singletonList(playerId))
+                    .get(PREFETCH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .get(playerId);
+            prefetched.put(playerId, new PrefetchedRecord(record, now + configSettings.getPrefetchTtlMillis()));
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Timed out prefetching oxygen data for " + playerId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Could not prefetch oxygen data for " + playerId, e);
+        }
     }
 
     /**
-     * Saves oxygen level for a player
-     * @param player The player
-     * @param oxygenLevel The oxygen level to save
+     * Drops a prefetched record that may be older than the player's latest save,
+     * e.g. when a duplicate login kicks a session that is still online
+     * @param playerId The player
      */
-    public void saveOxygenLevel(Player player, int oxygenLevel) {
-        UUID uuid = player.getUniqueId();
-        dataConfig.set("players." + uuid.toString() + ".oxygen", oxygenLevel);
-        dataConfig.set("players." + uuid.toString() + ".name", player.getName());
-        saveData();
+    public void invalidatePrefetch(UUID playerId) {
+        prefetched.remove(playerId);
     }
 
     /**
-     * Loads oxygen level for a player
+     * Loads oxygen level for a player.
+     * Uses the record prefetched during pre-login when available and falls
+     * back to a synchronous load otherwise.
      * @param player The player
      * @return The oxygen level or 100 if not found
      */
     public int loadOxygenLevel(Player player) {
-        UUID uuid = player.getUniqueId();
-        return dataConfig.getInt("players." + uuid.toString() + ".oxygen", 100);
+        OxygenRecord record = loadPlayerRecord(player);
+        return record != null ? record.getOxygenLevel() : 100;
+    }
+
+    /**
+     * Loads a player's record, preferring the one prefetched during pre-login
+     * @param player The player
+     * @return The record, or null if the player has no saved data
+     */
+    public OxygenRecord loadPlayerRecord(Player player) {
+        PrefetchedRecord entry = prefetched.remove(player.getUniqueId());
+        OxygenRecord record;
+        if (entry != null && entry.expiresAt >= System.currentTimeMillis()) {
+            prefetchHits.incrementAndGet();
+            record = entry.record;
+        } else {
+            prefetchMisses.incrementAndGet();
+            record = loadRecord(player);
+        }
+        return record;
+    }
+
+    /**
+     * Loads a player's record on the storage thread
+     * @param playerId The player
+     * @return Future completed with the record, or null if the player has no saved data
+     */
+    public CompletableFuture<OxygenRecord> loadRecordAsync(UUID playerId) {
+        return loadFuture.exceptionally(error -> null)
+                .thenCompose(ignored -> backend.loadMany(Collections.singletonList(playerId)))
+                .thenApply(records -> records.get(playerId));
     }
 
     /**
@@ -92,18 +227,213 @@ public class OxygenDataManager {
      * @return True if player has saved data
      */
     public boolean hasData(Player player) {
-        UUID uuid = player.getUniqueId();
-        return dataConfig.contains("players." + uuid.toString());
+        return loadRecord(player) != null;
+    }
+
+    private OxygenRecord loadRecord(Player player) {
+        awaitLoaded();
+        try {
+            return backend.loadMany(Collections.singletonList(player.getUniqueId()))
+                    .join()
+                    .get(player.getUniqueId());
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load player data for " + player.getName(), e);
+            return null;
+        }
+    }
+
+    private void awaitLoaded() {
+        CompletableFuture<Void> future = loadFuture;
+        if (future != null) {
+            future.exceptionally(error -> null).join();
+        }
     }
 
     /**
-     * Saves data to file
+     * Copies every player from one storage type to another on a separate thread.
+     * The live backend is reused when it is the source or target, other backends
+     * are opened just for the migration. Progress is checkpointed, so running the
+     * same migration again resumes it.
+     * @param from Source storage type
+     * @param to Target storage type
+     * @param restart Ignore an existing checkpoint
+     * @param listener Progress listener, called on the migration thread
+     * @return Future completed with the number of players copied
      */
-    public void saveData() {
+    public CompletableFuture<Long> migrate(String from, String to, boolean restart,
+                                           StorageMigration.ProgressListener listener) {
+        String source = StorageBackends.normalize(from);
+        String target = StorageBackends.normalize(to);
+        if (source == null || target == null || source.equals(target)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Invalid migration from '" + from + "' to '" + to + "'"));
+        }
+        if (!migrationRunning.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A migration is already running"));
+        }
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(runMigration(source, target, restart, listener));
+            } catch (Throwable e) {
+                plugin.getLogger().log(Level.SEVERE, "Migration from " + source + " to " + target + " failed", e);
+                result.completeExceptionally(e);
+            } finally {
+                migration = null;
+                migrationThread = null;
+                migrationRunning.set(false);
+            }
+        }, "Oxygen-Migration");
+        thread.setDaemon(true);
+        migrationThread = thread;
+        thread.start();
+        return result;
+    }
+
+    private long runMigration(String source, String target, boolean restart,
+                              StorageMigration.ProgressListener listener) throws Exception {
+        // The type the live backend was opened with; config may name another after a failed reload
+        StorageBackend live = backend;
+        String current = StorageBackends.normalize(backendType);
+        if (current == null) {
+            current = "file";
+        }
+
+        // Backends opened only for the migration run directly on the migration thread
+        StorageBackend sourceBackend = source.equals(current) ? live
+                : StorageBackends.create(source, plugin, configSettings, Runnable::run);
+        StorageBackend targetBackend = target.equals(current) ? live
+                : StorageBackends.create(target, plugin, configSettings, Runnable::run);
+
         try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "Could not save data to playerdata.yml", e);
+            if (sourceBackend != live) {
+                sourceBackend.init().join();
+            }
+            if (targetBackend != live) {
+                targetBackend.init().join();
+            }
+
+            File checkpoint = new File(plugin.getDataFolder(), "migration-" + source + "-" + target + ".properties");
+            StorageMigration running = new StorageMigration(plugin.getLogger(), sourceBackend, targetBackend,
+                    checkpoint, configSettings.getMigrationBatchSize());
+            migration = running;
+            if (shuttingDown) {
+                // Shutdown started while the backends were opening
+                running.cancel();
+            }
+
+            long copied = running.run(restart, listener);
+            if (!running.isCancelled()) {
+                // Online players may have changed after their page was copied.
+                // The online map is concurrent, so it can be read from this thread on Paper and Folia alike
+                Collection<OxygenRecord> online = plugin.getOxygenManager().snapshotOnline();
+                targetBackend.saveMany(online).join();
+            }
+            return copied;
+        } finally {
+            if (sourceBackend != live) {
+                sourceBackend.close().join();
+            }
+            if (targetBackend != live) {
+                targetBackend.close().join();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a migration is in progress
+     * @return True while a migration runs
+     */
+    public boolean isMigrating() {
+        return migrationRunning.get();
+    }
+
+    /**
+     * Waits for queued writes and stops the storage thread
+     * @param timeoutMillis Maximum time to wait
+     */
+    public void shutdown(long timeoutMillis) {
+        // A cancelled migration keeps its checkpoint and resumes next time
+        shuttingDown = true;
+        StorageMigration running = migration;
+        if (running != null) {
+            running.cancel();
+        }
+
+        // The migration may be writing a page through the live backend, let it stop before closing
+        Thread thread = migrationThread;
+        if (thread != null) {
+            try {
+                thread.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                plugin.getLogger().warning("Migration did not stop within " + timeoutMillis + "ms");
+            }
+        }
+
+        try {
+            backend.close().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            storageExecutor.shutdown();
+            if (!storageExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Storage thread did not finish within " + timeoutMillis + "ms");
+                storageExecutor.shutdownNow();
+            }
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Timed out waiting for player data to be saved");
+            storageExecutor.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            storageExecutor.shutdownNow();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Error while saving player data on shutdown", e);
+            storageExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the active storage backend
+     * @return The backend
+     */
+    public StorageBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Gets the number of storage tasks waiting to run
+     * @return Queued task count
+     */
+    public int getQueuedTasks() {
+        return storageExecutor.getQueue().size();
+    }
+
+    public long getPrefetchHits() {
+        return prefetchHits.get();
+    }
+
+    public long getPrefetchMisses() {
+        return prefetchMisses.get();
+    }
+
+    /**
+     * Gets the share of joins served from the prefetch cache
+     * @return Hit rate between 0 and 1
+     */
+    public double getPrefetchHitRate() {
+        long hits = prefetchHits.get();
+        long total = hits + prefetchMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private static final class PrefetchedRecord {
+        final OxygenRecord record; // null for players without saved data
+        final long expiresAt;
+
+        PrefetchedRecord(OxygenRecord record, long expiresAt) {
+            this.record = record;
+            this.expiresAt = expiresAt;
         }
     }
-}
\ No newline at end of file
+}
@@ -2,33 +2,49 @@ package org.haile.oxygen.managers;
 
 import org.bukkit.entity.Player;
 import org.bukkit.potion.Potion;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
 import org.haile.oxygen.models.ConfigSettings;
 import org.haile.oxygen.models.OxygenPlayer;
+import org.haile.oxygen.models.OxygenRecord;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class OxygenPlayerManager {
-    private final Map<UUID, OxygenPlayer> oxygenPlayers = new HashMap<>();
+    // Online players only; entries are evicted on quit and move to the offline cache.
+    // Concurrent because on Folia each player is updated by the region thread that owns them
+    private final Map<UUID, OxygenPlayer> oxygenPlayers = new ConcurrentHashMap<>();
+    private final OfflineOxygenCache offlineCache;
+    private final LowOxygenEffectManager effectManager;
+
+    // Players whose in-memory oxygen level has not been written to storage yet
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
     private final BossBarManager bossBarManager;
     private final OxygenDataManager dataManager;
     private final ConfigSettings configSettings;
 
-    public OxygenPlayerManager(BossBarManager bossBarManager, OxygenDataManager dataManager, ConfigSettings configSettings) {
+    public OxygenPlayerManager(BossBarManager bossBarManager, OxygenDataManager dataManager,
+                               LowOxygenEffectManager effectManager, ConfigSettings configSettings) {
         this.bossBarManager = bossBarManager;
+        this.effectManager = effectManager;
         this.dataManager = dataManager;
         this.configSettings = configSettings;
+        this.offlineCache = new OfflineOxygenCache(dataManager, configSettings.getOfflineCacheSize());
     }
 
     /**
      * Loads configuration for OxygenPlayerManager
      */
     public void loadConfiguration() {
-        // Configuration is now loaded through ConfigSettings
-        // This method can be used to trigger updates when config changes
+        // The storage backend may have changed, so cached offline data is read again on demand
+        offlineCache.clear();
+        offlineCache.setMaxSize(configSettings.getOfflineCacheSize());
     }
 
     /**
@@ -53,11 +69,14 @@ public class OxygenPlayerManager {
         // Update oxygen level
         oxygenPlayer.setOxygenLevel(clampedOxygen);
 
+        // A refill above the threshold of the player's low oxygen effects removes them right away
+        effectManager.onOxygenChanged(player, oxygenPlayer, clampedOxygen);
+
         // Update boss bar
         bossBarManager.updateBossBar(player, clampedOxygen);
 
-        // Save to persistent storage
-        dataManager.saveOxygenLevel(player, clampedOxygen);
+        // Mark for the next write-behind flush
+        dirtyPlayers.add(playerId);
     }
 
     /**
@@ -83,14 +102,22 @@ public class OxygenPlayerManager {
      * @param player The player
      */
     public void loadOxygen(Player player) {
-        int oxygen = dataManager.loadOxygenLevel(player);
+        // A player who rejoins is usually still in the offline cache with their latest level
+        OxygenRecord cached = offlineCache.remove(player.getUniqueId());
+        OxygenRecord record = cached != null ? cached : dataManager.loadPlayerRecord(player);
 
         // Create and store OxygenPlayer
         OxygenPlayer oxygenPlayer = new OxygenPlayer(
                 player.getUniqueId(),
                 player.getName(),
-                oxygen
+                record != null ? record.getOxygenLevel() : 100
         );
+        if (record != null && catchUp(oxygenPlayer, record.getUpdatedAt())) {
+            dirtyPlayers.add(player.getUniqueId());
+        }
+        int oxygen = oxygenPlayer.getOxygenLevel();
+        // Warnings compare against a full tank until the first check
+        oxygenPlayer.setLastWarningLevel(configSettings.getMaxOxygenLevel());
 
         oxygenPlayers.put(player.getUniqueId(), oxygenPlayer);
 
@@ -99,45 +126,157 @@ public class OxygenPlayerManager {
     }
 
     /**
-     * Decreases a player's oxygen level by 1
+     * Applies the configured catch-up policy for the time since a record was saved.
+     * Rates are constant while offline, so the result is computed directly from the elapsed time.
+     * @param oxygenPlayer The freshly loaded player
+     * @param updatedAt Epoch millis the saved level was simulated at, 0 if unknown
+     * @return True if the level changed
+     */
+    private boolean catchUp(OxygenPlayer oxygenPlayer, long updatedAt) {
+        String policy = configSettings.getCatchUpPolicy();
+        long elapsedMillis = System.currentTimeMillis() - updatedAt;
+        if (updatedAt <= 0 || elapsedMillis <= 0 || policy.equals("freeze")) {
+            return false;
+        }
+
+        long before = oxygenPlayer.getOxygenMicros();
+        if (policy.equals("drain")) {
+            // Same base rate as online: one unit per decrease-rate ticks, 50 ms each
+            double ticks = elapsedMillis / 50.0;
+            double drained = ticks * OxygenPlayer.UNIT / Math.max(1, configSettings.getDecreaseRate())
+                    * configSettings.getCatchUpDrainMultiplier();
+            oxygenPlayer.setOxygenMicros(before - (long) Math.min(before, drained));
+        } else {
+            // Refill up to the normal maximum; a level already above it (oxygen.unlimited) is kept
+            long max = configSettings.getMaxOxygenLevel() * OxygenPlayer.UNIT;
+            if (before < max) {
+                double refilled = elapsedMillis / 60000.0 * configSettings.getCatchUpRefillPerMinute() * OxygenPlayer.UNIT;
+                oxygenPlayer.setOxygenMicros(before + (long) Math.min(max - before, refilled));
+            }
+        }
+        return oxygenPlayer.getOxygenLevel() != OxygenPlayer.toLevel(before);
+    }
+
+    /**
+     * Takes a fractional amount of oxygen from a player.
+     * The boss bar and storage only see whole levels, so they are only touched when the whole level changes.
+     * Low oxygen effects are kept in sync separately by {@link LowOxygenEffectManager}.
      * @param player The player
+     * @param micros Amount to take in micro-units, negative to refill
+     * @return The player's new whole oxygen level
      */
-    public void decreaseOxygen(Player player) {
+    public int consumeOxygen(Player player, long micros) {
         UUID playerId = player.getUniqueId();
         OxygenPlayer oxygenPlayer = oxygenPlayers.get(playerId);
+        if (oxygenPlayer == null) {
+            // If player not found, initialize with default value first
+            loadOxygen(player);
+            oxygenPlayer = oxygenPlayers.get(playerId);
+        }
 
-        if (oxygenPlayer != null) {
-            oxygenPlayer.decreaseOxygen(1);
-
-            // Cho người chơi effects giảm damage và đi chậm
-            int newOxygen = oxygenPlayer.getOxygenLevel();
-            if (newOxygen < 20) {
-                player.addPotionEffect(new PotionEffect(PotionEffectType.WEAKNESS, 100, 1, false, false, false));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.SLOW, 100, 1, false, false, false));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.CONFUSION, 100, 3, false, false, false));
-            }
+        int oldOxygen = oxygenPlayer.getOxygenLevel();
+        if (micros < 0) {
+            // A refill never goes past the max level
+            long maxMicros = configSettings.getMaxOxygenLevel() * OxygenPlayer.UNIT;
+            micros = Math.max(micros, Math.min(0L, oxygenPlayer.getOxygenMicros() - maxMicros));
+        }
+        oxygenPlayer.consumeMicros(micros);
+        int newOxygen = oxygenPlayer.getOxygenLevel();
 
+        if (newOxygen != oldOxygen) {
             // Update boss bar
             bossBarManager.updateBossBar(player, newOxygen);
 
-            // Save to storage
-            dataManager.saveOxygenLevel(player, newOxygen);
-        } else {
-            // If player not found, initialize with default value and decrease
-            loadOxygen(player);
-            decreaseOxygen(player); // Recursive but will only happen once
+            // Mark for the next write-behind flush
+            dirtyPlayers.add(playerId);
         }
+        return newOxygen;
     }
 
     /**
-     * Applies damage to a player when oxygen is depleted
-     * @param player The player
+     * Writes all dirty players to storage in a single batch.
+     * Memory stays the source of truth between flushes; only an immutable
+     * snapshot is handed to the storage thread.
+     * @return Future completed once the batch is on disk
+     */
+    public CompletableFuture<Void> flushDirty() {
+        if (dirtyPlayers.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<OxygenRecord> batch = new ArrayList<>(dirtyPlayers.size());
+        Iterator<UUID> iterator = dirtyPlayers.iterator();
+        while (iterator.hasNext()) {
+            UUID playerId = iterator.next();
+            // Unmark before reading, so a change made meanwhile on another region marks the player again
+            iterator.remove();
+            OxygenPlayer oxygenPlayer = oxygenPlayers.get(playerId);
+            if (oxygenPlayer != null) {
+                batch.add(OxygenRecord.of(oxygenPlayer));
+            }
+        }
+
+        return dataManager.saveOxygenLevels(batch);
+    }
+
+    /**
+     * Takes a snapshot of every online player's current level
+     * @return Records of all online players
      */
-    public void applyDamage(Player player) {
-        if (player.getHealth() > 0) {
-            double damage = Math.min(player.getHealth(), configSettings.getDamageAmount());
-            player.damage(damage);
+    public List<OxygenRecord> snapshotOnline() {
+        List<OxygenRecord> records = new ArrayList<>(oxygenPlayers.size());
+        for (OxygenPlayer oxygenPlayer : oxygenPlayers.values()) {
+            records.add(OxygenRecord.of(oxygenPlayer));
+        }
+        return records;
+    }
+
+    /**
+     * Removes a player from the online tier.
+     * Their pending change is saved and the final record moves to the offline cache.
+     * @param player The player who quit
+     * @return Future completed once the player's data is saved
+     */
+    public CompletableFuture<Void> unloadPlayer(Player player) {
+        UUID playerId = player.getUniqueId();
+        OxygenPlayer oxygenPlayer = oxygenPlayers.remove(playerId);
+        if (oxygenPlayer == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        OxygenRecord record = OxygenRecord.of(oxygenPlayer);
+        offlineCache.put(record);
+
+        // With a catch-up policy the quit time must be saved even if the level did not change
+        boolean dirty = dirtyPlayers.remove(playerId);
+        if (dirty || !configSettings.getCatchUpPolicy().equals("freeze")) {
+            return dataManager.saveOxygenLevels(Collections.singletonList(record));
         }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Gets the cache of offline players' oxygen data
+     * @return The offline cache
+     */
+    public OfflineOxygenCache getOfflineCache() {
+        return offlineCache;
+    }
+
+    /**
+     * Gets the number of players in the online tier
+     * @return Online player count
+     */
+    public int getOnlineCount() {
+        return oxygenPlayers.size();
+    }
+
+    /**
+     * Gets the number of players waiting for the next flush
+     * @return Dirty player count
+     */
+    public int getDirtyCount() {
+        return dirtyPlayers.size();
     }
 
     /**
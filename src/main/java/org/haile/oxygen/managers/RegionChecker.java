@@ -1,18 +1,102 @@
 package org.haile.oxygen.managers;
 
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
-import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldguard.WorldGuard;
-import com.sk89q.worldguard.protection.ApplicableRegionSet;
-import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.events.OxygenZoneChangeEvent;
+import org.haile.oxygen.models.OxygenZone;
+import org.haile.oxygen.regions.InMemoryRegionProvider;
+import org.haile.oxygen.regions.RegionIndex;
+import org.haile.oxygen.regions.RegionProvider;
+import org.haile.oxygen.regions.RegionProviders;
+import org.haile.oxygen.scheduler.OxygenTask;
+import org.haile.oxygen.tasks.OxygenConsumerTasks;
 
-public class RegionChecker {
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RegionChecker implements Listener {
     private final Oxygen plugin;
+    private final SealedRoomManager sealedRooms;
+    // Replaced as a whole when the provider changes
+    private volatile RegionIndex index = new RegionIndex(new InMemoryRegionProvider());
+    // Set from code, e.g. by a load test; wins over regions.provider
+    private RegionProvider providerOverride;
+    // Last block and region result per player; each entry is only touched by the thread that owns the player
+    private final Map<UUID, CachedZone> playerZones = new ConcurrentHashMap<>();
+    // Bumped whenever the index changed, which makes every cached result stale
+    private volatile int indexVersion;
+
+    private OxygenTask refreshTask;
+    private long ticksUntilPoll;
+    // Set when a region command ran, so the index is checked on the next tick instead of the next poll
+    private volatile boolean refreshRequested;
 
     public RegionChecker(Oxygen plugin) {
         this.plugin = plugin;
+        this.sealedRooms = plugin.getSealedRoomManager();
+    }
+
+    /**
+     * Builds the region index from the configured provider and starts watching it for region changes.
+     * WorldGuard has no event for region edits, so regions are fingerprinted
+     * periodically and right after region commands; only changed worlds are rebuilt.
+     */
+    public void start() {
+        stop();
+        RegionProvider provider = providerOverride != null ? providerOverride
+                : RegionProviders.create(plugin.getConfigSettings().getRegionProvider(), plugin);
+        index = new RegionIndex(provider);
+        plugin.getLogger().info("Using " + provider.getName() + " regions");
+        refreshIndex();
+
+        long interval = plugin.getConfigSettings().getRegionIndexRefreshTicks();
+        ticksUntilPoll = interval;
+        refreshTask = plugin.getOxygenScheduler().runTimer(() -> {
+            if (refreshRequested || --ticksUntilPoll <= 0) {
+                refreshRequested = false;
+                ticksUntilPoll = interval;
+                refreshIndex();
+            }
+        }, 1L, 1L);
+    }
+
+    /**
+     * Replaces the configured region provider and rebuilds the index from it
+     * @param provider The provider, or null to go back to regions.provider
+     */
+    public void setProvider(RegionProvider provider) {
+        this.providerOverride = provider;
+        start();
+    }
+
+    /**
+     * Gets the provider the region index is currently built from
+     * @return The region provider
+     */
+    public RegionProvider getProvider() {
+        return index.getProvider();
+    }
+
+    /**
+     * Stops watching for region changes
+     */
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
     }
 
     /**
@@ -21,32 +105,182 @@ public class RegionChecker {
      * @return True if player is in a spaceship region
      */
     public boolean isInSpaceshipRegion(Player player) {
-        try {
-            // Convert Bukkit Location to WorldEdit Location
-            com.sk89q.worldedit.world.World world = BukkitAdapter.adapt(player.getWorld());
-            BlockVector3 position = BukkitAdapter.asBlockVector(player.getLocation());
+        Location location = player.getLocation();
+        return isInSpaceshipRegion(player.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
 
-            // Get the RegionContainer and RegionManager
-            var regionContainer = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            var regionManager = regionContainer.get(world);
+    /**
+     * Checks if a player at a location is in a spaceship region
+     * @param player The player
+     * @param location The player's (new) location
+     * @return True if the location is in an oxygen zone
+     * @see #getZone(Player, Location)
+     */
+    public boolean isInSpaceshipRegion(Player player, Location location) {
+        return getZone(player, location).isOxygenZone();
+    }
 
-            if (regionManager == null) {
-                return false; // No regions in this world
-            }
+    /**
+     * Gets the oxygen settings for a player at a location, reusing the previous
+     * result while they stay on the same block. When they enter or leave an
+     * oxygen zone, an {@link OxygenZoneChangeEvent} is called.
+     * Must run on the thread that owns the player.
+     * @param player The player
+     * @param location The player's (new) location
+     * @return The settings of the regions at the location
+     */
+    public OxygenZone getZone(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) {
+            return OxygenZone.NONE;
+        }
 
-            // Get applicable regions at the player's location
-            ApplicableRegionSet regions = regionManager.getApplicableRegions(position);
+        int blockX = location.getBlockX();
+        int blockY = location.getBlockY();
+        int blockZ = location.getBlockZ();
+        int version = indexVersion;
 
-            // Check if any region has "spaceship" in its ID
-            for (ProtectedRegion region : regions) {
-                if (region.getId().toLowerCase().contains("spaceship")) {
-                    return true;
-                }
+        CachedZone cached = playerZones.get(player.getUniqueId());
+        if (cached == null) {
+            cached = new CachedZone();
+            playerZones.put(player.getUniqueId(), cached);
+        } else if (cached.matches(world, blockX, blockY, blockZ, version)) {
+            return cached.zone;
+        }
+
+        OxygenZone result = index.lookup(world, blockX, blockY, blockZ);
+        if (!result.isOxygenZone() && sealedRooms != null && sealedRooms.isPressurized(world, blockX, blockY, blockZ)) {
+            result = sealedRooms.getPressurizedZone();
+        }
+        boolean changed = result.isOxygenZone() != cached.zone.isOxygenZone();
+        cached.update(world, blockX, blockY, blockZ, version, result);
+
+        if (changed) {
+            new OxygenZoneChangeEvent(player, result.isOxygenZone(), location).callEvent();
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a block position is in a spaceship region.
+     * Unlike {@link #isInSpaceshipRegion(Player, Location)}, nothing is cached and no event is called.
+     * Only reads the plugin's region index, so it may be called from any thread.
+     * @param bukkitWorld The world
+     * @param blockX Block X
+     * @param blockY Block Y
+     * @param blockZ Block Z
+     * @return True if the position is in a spaceship region
+     */
+    public boolean isInSpaceshipRegion(World bukkitWorld, int blockX, int blockY, int blockZ) {
+        return index.lookup(bukkitWorld, blockX, blockY, blockZ).isOxygenZone()
+                || (sealedRooms != null && sealedRooms.isPressurized(bukkitWorld, blockX, blockY, blockZ));
+    }
+
+    /**
+     * Gets the number of regions in the index
+     * @return Indexed region count
+     */
+    public int getIndexedRegionCount() {
+        return index.size();
+    }
+
+    /**
+     * Rebuilds the index of every world whose regions changed and re-evaluates
+     * online players, who may now stand in a zone that appeared or disappeared under them
+     */
+    private void refreshIndex() {
+        RegionIndex index = this.index;
+        List<World> worlds = plugin.getServer().getWorlds();
+        index.retain(worlds);
+
+        boolean changed = false;
+        for (World world : worlds) {
+            try {
+                changed |= index.refresh(world);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error indexing oxygen regions of " + world.getName() + ": " + e.getMessage());
             }
-            return false;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error checking spaceship region: " + e.getMessage());
-            return false; // Return false on error to avoid breaking functionality
+        }
+
+        if (changed) {
+            invalidateZones();
+        }
+    }
+
+    /**
+     * Makes every cached zone stale and re-evaluates online players, e.g. after
+     * regions or sealed rooms changed under players who are standing still
+     */
+    public void invalidateZones() {
+        indexVersion++;
+        OxygenConsumerTasks oxygenTask = plugin.getOxygenTask();
+        if (oxygenTask != null) {
+            oxygenTask.refreshAll();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerZones.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        refreshRequested = true;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        refreshRequested = true;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        if (isRegionCommand(event.getMessage())) {
+            refreshRequested = true;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerCommand(ServerCommandEvent event) {
+        if (isRegionCommand(event.getCommand())) {
+            refreshRequested = true;
+        }
+    }
+
+    private static boolean isRegionCommand(String command) {
+        String lower = command.toLowerCase();
+        if (lower.startsWith("/")) {
+            lower = lower.substring(1);
+        }
+        return lower.startsWith("rg ") || lower.startsWith("region ") || lower.startsWith("regions ")
+                || lower.startsWith("worldguard:");
+    }
+
+    /**
+     * The block a player was last checked on and the oxygen settings there
+     */
+    private static final class CachedZone {
+        private UUID worldId;
+        private int blockX;
+        private int blockY;
+        private int blockZ;
+        private int version = -1;
+        // Players start outside, so joining inside a region is an enter
+        private OxygenZone zone = OxygenZone.NONE;
+
+        private boolean matches(World world, int x, int y, int z, int indexVersion) {
+            return x == blockX && y == blockY && z == blockZ && version == indexVersion
+                    && world.getUID().equals(worldId);
+        }
+
+        private void update(World world, int x, int y, int z, int indexVersion, OxygenZone result) {
+            this.worldId = world.getUID();
+            this.blockX = x;
+            this.blockY = y;
+            this.blockZ = z;
+            this.version = indexVersion;
+            this.zone = result;
         }
     }
-}
\ No newline at end of file
+}
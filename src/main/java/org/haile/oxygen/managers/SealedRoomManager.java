@@ -0,0 +1,625 @@
+package org.haile.oxygen.managers;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.models.OxygenZone;
+import org.haile.oxygen.rooms.PressurizedIndex;
+import org.haile.oxygen.rooms.PressurizedVolume;
+import org.haile.oxygen.rooms.RoomFloodFill;
+import org.haile.oxygen.scheduler.OxygenScheduler;
+import org.haile.oxygen.scheduler.OxygenTask;
+import org.haile.oxygen.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detects sealed rooms around oxygen generator blocks, so hand-built ships need no regions.
+ * Placed generators are remembered in generators.yml. The air around each one is
+ * flood filled on chunk snapshots on a separate thread; air that stays within the
+ * configured radius and volume is a pressurized room where players do not consume oxygen.
+ * Block changes are queued by the threads that own the blocks and handled on the
+ * global thread, which owns all generator state. Only changes inside or next to a
+ * sealed room, or inside the search area of a generator whose room leaks, fill again.
+ * Generators are bucketed by the chunks their search area covers, so a change only
+ * looks at the generators near it.
+ */
+public class SealedRoomManager implements Listener {
+    private static final String GENERATORS_FILE = "generators.yml";
+
+    private final Oxygen plugin;
+    private final ConfigSettings configSettings;
+    private final OxygenScheduler scheduler;
+    private final PressurizedIndex index = new PressurizedIndex();
+
+    // Owned by the global thread
+    private final Map<String, Generator> generators = new HashMap<>();
+    // World name -> chunk key -> generators whose search area reaches into the chunk
+    private final Map<String, Map<Long, List<Generator>>> buckets = new HashMap<>();
+    // Generators waiting for their world or a chunk around them to load
+    private final Set<Generator> unloaded = new HashSet<>();
+    private final Set<Generator> dirty = new LinkedHashSet<>();
+    // Block changes from the threads that own the blocks, handled on the next global tick
+    private final Queue<BlockChange> changes = new ConcurrentLinkedQueue<>();
+
+    private ExecutorService fillExecutor;
+    private OxygenTask tickTask;
+    private volatile boolean enabled;
+    private volatile OxygenZone pressurizedZone = new OxygenZone(true, 0.0, 1.0);
+    // Set while a generator waits for its chunks, so chunk loads are only queued when someone needs them
+    private volatile boolean waitingForChunks;
+    private volatile int sealedCount;
+    // Radius the buckets were built with, fixed until the next start
+    private int radius;
+
+    public SealedRoomManager(Oxygen plugin, ConfigSettings configSettings) {
+        this.plugin = plugin;
+        this.configSettings = configSettings;
+        this.scheduler = plugin.getOxygenScheduler();
+    }
+
+    /**
+     * Loads the generators and fills every room again. Also used on reload.
+     */
+    public void start() {
+        stop();
+        enabled = configSettings.isSealedRoomsEnabled();
+        pressurizedZone = new OxygenZone(true, configSettings.getSealedRoomRefillRate(), 1.0);
+        radius = configSettings.getSealedRoomRadius();
+        if (!enabled) {
+            return;
+        }
+
+        fillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Oxygen-SealedRooms");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        loadGenerators();
+        dirty.addAll(generators.values());
+        tickTask = scheduler.runTimer(this::tick, 1L, 1L);
+        plugin.getLogger().info("Loaded " + generators.size() + " oxygen generators");
+    }
+
+    /**
+     * Stops filling rooms and forgets every room. Fills still running are dropped.
+     */
+    public void stop() {
+        enabled = false;
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        if (fillExecutor != null) {
+            // Lets a pending generators.yml write finish
+            fillExecutor.shutdown();
+            try {
+                fillExecutor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            fillExecutor = null;
+        }
+
+        boolean hadRooms = sealedCount > 0;
+        generators.clear();
+        buckets.clear();
+        unloaded.clear();
+        dirty.clear();
+        changes.clear();
+        index.clear();
+        sealedCount = 0;
+        if (hadRooms && plugin.getRegionChecker() != null) {
+            plugin.getRegionChecker().invalidateZones();
+        }
+    }
+
+    /**
+     * Checks if a block is in a sealed room. Safe to call from any thread.
+     * @param world The world
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @return True if the block is pressurized
+     */
+    public boolean isPressurized(World world, int x, int y, int z) {
+        return enabled && index.contains(world.getUID(), x, y, z);
+    }
+
+    /**
+     * Gets the oxygen settings of sealed rooms
+     * @return An oxygen zone with the configured refill rate
+     */
+    public OxygenZone getPressurizedZone() {
+        return pressurizedZone;
+    }
+
+    /**
+     * Gets the number of known generators
+     * @return Generator count
+     */
+    public int getGeneratorCount() {
+        return generators.size();
+    }
+
+    /**
+     * Gets the number of generators whose room is sealed
+     * @return Sealed room count
+     */
+    public int getSealedCount() {
+        return sealedCount;
+    }
+
+    private void tick() {
+        BlockChange change;
+        boolean generatorsChanged = false;
+        while ((change = changes.poll()) != null) {
+            generatorsChanged |= handle(change);
+        }
+        if (generatorsChanged) {
+            saveGenerators();
+        }
+
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Generator> due = new ArrayList<>(dirty);
+        dirty.clear();
+        for (Generator generator : due) {
+            if (generator.filling) {
+                // Fill again once the running fill is done, it may have read the old blocks
+                generator.fillAgain = true;
+            } else {
+                fill(generator);
+            }
+        }
+    }
+
+    /**
+     * Marks the generators a queued change may affect
+     * @return True if a generator was added
+     */
+    private boolean handle(BlockChange change) {
+        switch (change.kind) {
+            case BlockChange.GENERATOR_PLACED: {
+                String key = key(change.worldName, change.x, change.y, change.z);
+                if (generators.containsKey(key)) {
+                    return false;
+                }
+                Generator generator = new Generator(change.worldName, change.x, change.y, change.z);
+                addGenerator(generator);
+                dirty.add(generator);
+                return true;
+            }
+            case BlockChange.BLOCK_CHANGED:
+                for (Generator generator : getBucket(change.worldName, change.x >> 4, change.z >> 4)) {
+                    if (generator.isAffectedBy(change.x, change.y, change.z, radius)) {
+                        dirty.add(generator);
+                    }
+                }
+                return false;
+            case BlockChange.CHUNK_LOADED:
+                if (change.x == Integer.MIN_VALUE) {
+                    for (Iterator<Generator> iterator = unloaded.iterator(); iterator.hasNext(); ) {
+                        Generator generator = iterator.next();
+                        if (generator.worldName.equals(change.worldName)) {
+                            iterator.remove();
+                            dirty.add(generator);
+                        }
+                    }
+                } else {
+                    for (Generator generator : getBucket(change.worldName, change.x, change.z)) {
+                        if (unloaded.remove(generator)) {
+                            dirty.add(generator);
+                        }
+                    }
+                }
+                // Fills that still miss a chunk wait again
+                waitingForChunks = !unloaded.isEmpty();
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Remembers a generator and adds it to the buckets of every chunk its search area covers
+     */
+    private void addGenerator(Generator generator) {
+        generators.put(generator.getKey(), generator);
+        Map<Long, List<Generator>> chunks = buckets.computeIfAbsent(generator.worldName, name -> new HashMap<>());
+        for (int chunkX = (generator.x - radius - 1) >> 4; chunkX <= (generator.x + radius + 1) >> 4; chunkX++) {
+            for (int chunkZ = (generator.z - radius - 1) >> 4; chunkZ <= (generator.z + radius + 1) >> 4; chunkZ++) {
+                chunks.computeIfAbsent(chunkKey(chunkX, chunkZ), key -> new ArrayList<>(1)).add(generator);
+            }
+        }
+    }
+
+    private void removeGenerator(Generator generator) {
+        generators.remove(generator.getKey());
+        unloaded.remove(generator);
+        Map<Long, List<Generator>> chunks = buckets.get(generator.worldName);
+        if (chunks == null) {
+            return;
+        }
+        for (int chunkX = (generator.x - radius - 1) >> 4; chunkX <= (generator.x + radius + 1) >> 4; chunkX++) {
+            for (int chunkZ = (generator.z - radius - 1) >> 4; chunkZ <= (generator.z + radius + 1) >> 4; chunkZ++) {
+                long key = chunkKey(chunkX, chunkZ);
+                List<Generator> bucket = chunks.get(key);
+                if (bucket != null && bucket.remove(generator) && bucket.isEmpty()) {
+                    chunks.remove(key);
+                }
+            }
+        }
+        if (chunks.isEmpty()) {
+            buckets.remove(generator.worldName);
+        }
+    }
+
+    /**
+     * Gets the generators whose search area reaches into a chunk
+     */
+    private List<Generator> getBucket(String worldName, int chunkX, int chunkZ) {
+        Map<Long, List<Generator>> chunks = buckets.get(worldName);
+        if (chunks == null) {
+            return Collections.emptyList();
+        }
+        return chunks.getOrDefault(chunkKey(chunkX, chunkZ), Collections.emptyList());
+    }
+
+    private void markUnloaded(Generator generator) {
+        unloaded.add(generator);
+        waitingForChunks = true;
+    }
+
+    /**
+     * Snapshots the chunks around a generator on their own threads and fills its room off the server threads
+     */
+    private void fill(Generator generator) {
+        World world = plugin.getServer().getWorld(generator.worldName);
+        if (world == null) {
+            markUnloaded(generator);
+            return;
+        }
+
+        // Same radius as the buckets; the fill thread gets its own copy
+        int radius = this.radius;
+        int maxVolume = configSettings.getSealedRoomMaxVolume();
+        Material generatorMaterial = configSettings.getSealedRoomGenerator();
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight();
+
+        // One block past the radius, so the walls around the largest room are covered too
+        int minChunkX = (generator.x - radius - 1) >> 4;
+        int minChunkZ = (generator.z - radius - 1) >> 4;
+        int span = Math.max(((generator.x + radius + 1) >> 4) - minChunkX,
+                ((generator.z + radius + 1) >> 4) - minChunkZ) + 1;
+
+        ExecutorService executor = fillExecutor;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[span * span];
+        AtomicInteger remaining = new AtomicInteger(snapshots.length);
+        AtomicBoolean unloaded = new AtomicBoolean();
+        generator.filling = true;
+
+        for (int column = 0; column < span; column++) {
+            for (int row = 0; row < span; row++) {
+                int chunkX = minChunkX + column;
+                int chunkZ = minChunkZ + row;
+                int slot = column * span + row;
+                scheduler.runAtChunk(world, chunkX, chunkZ, () -> {
+                    // Never load chunks for this; the room is filled again once they are loaded
+                    if (world.isChunkLoaded(chunkX, chunkZ)) {
+                        snapshots[slot] = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+                    } else {
+                        unloaded.set(true);
+                    }
+                    if (remaining.decrementAndGet() > 0) {
+                        return;
+                    }
+
+                    // The last snapshot was taken, hand them all to the fill thread
+                    try {
+                        executor.execute(() -> {
+                            RoomFloodFill result = null;
+                            if (!unloaded.get()) {
+                                try {
+                                    result = RoomFloodFill.fill(snapshots, minChunkX, minChunkZ, span, minY, maxY,
+                                            generator.x, generator.y, generator.z, generatorMaterial, radius, maxVolume);
+                                } catch (RuntimeException e) {
+                                    plugin.getLogger().warning("Error filling the room of " + generator + ": " + e.getMessage());
+                                }
+                            }
+                            RoomFloodFill finished = result;
+                            boolean waiting = unloaded.get();
+                            scheduler.runGlobal(() -> finish(generator, finished, waiting));
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // Stopped meanwhile; the next start fills every room again
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Stores the result of a fill on the global thread
+     * @param generator The generator
+     * @param result The fill, null if it could not run
+     * @param unloaded True if a chunk around the generator was not loaded
+     */
+    private void finish(Generator generator, RoomFloodFill result, boolean unloaded) {
+        generator.filling = false;
+        // Removed, or the manager restarted, while the fill was running
+        if (generators.get(generator.getKey()) != generator) {
+            return;
+        }
+
+        PressurizedVolume before = generator.volume;
+        if (unloaded) {
+            // Keep the room as it was; nobody can stand in an unloaded chunk
+            markUnloaded(generator);
+        } else if (result == null) {
+            generator.volume = null;
+        } else {
+            switch (result.getOutcome()) {
+                case SEALED:
+                    generator.volume = result.getVolume();
+                    break;
+                case NO_GENERATOR:
+                    removeGenerator(generator);
+                    generator.volume = null;
+                    saveGenerators();
+                    break;
+                default:
+                    generator.volume = null;
+                    break;
+            }
+        }
+
+        if (generator.volume != before) {
+            rebuild(generator.worldName);
+        }
+        if (generator.fillAgain) {
+            generator.fillAgain = false;
+            if (generators.get(generator.getKey()) == generator) {
+                dirty.add(generator);
+            }
+        }
+    }
+
+    /**
+     * Swaps in the rooms of a world and re-evaluates players, who may now stand in a room that sealed or leaked
+     */
+    private void rebuild(String worldName) {
+        World world = plugin.getServer().getWorld(worldName);
+        int sealed = 0;
+        List<PressurizedVolume> volumes = new ArrayList<>();
+        for (Generator generator : generators.values()) {
+            if (generator.volume == null) {
+                continue;
+            }
+            sealed++;
+            if (generator.worldName.equals(worldName)) {
+                volumes.add(generator.volume);
+            }
+        }
+        sealedCount = sealed;
+
+        if (world != null) {
+            index.rebuild(world.getUID(), volumes);
+        }
+        if (plugin.getRegionChecker() != null) {
+            plugin.getRegionChecker().invalidateZones();
+        }
+    }
+
+    private void loadGenerators() {
+        File file = new File(plugin.getDataFolder(), GENERATORS_FILE);
+        if (!file.exists()) {
+            return;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        for (String entry : config.getStringList("generators")) {
+            String[] parts = entry.split(",");
+            if (parts.length != 4) {
+                plugin.getLogger().warning("Invalid oxygen generator in " + GENERATORS_FILE + ": " + entry);
+                continue;
+            }
+            try {
+                Generator generator = new Generator(parts[0], Integer.parseInt(parts[1].trim()),
+                        Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim()));
+                addGenerator(generator);
+            } catch (NumberFormatException e) {
+                plugin.getLogger().warning("Invalid oxygen generator in " + GENERATORS_FILE + ": " + entry);
+            }
+        }
+    }
+
+    /**
+     * Writes the generator list on the fill thread, after any fill already queued
+     */
+    private void saveGenerators() {
+        List<String> entries = new ArrayList<>(generators.size());
+        for (Generator generator : generators.values()) {
+            entries.add(generator.worldName + "," + generator.x + "," + generator.y + "," + generator.z);
+        }
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("generators", entries);
+        byte[] content = config.saveToString().getBytes(StandardCharsets.UTF_8);
+
+        File file = new File(plugin.getDataFolder(), GENERATORS_FILE);
+        try {
+            fillExecutor.execute(() -> {
+                try {
+                    FileUtils.writeAtomically(file.toPath(), content);
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not save " + GENERATORS_FILE + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().warning("Could not save " + GENERATORS_FILE + ": sealed rooms are stopping");
+        }
+    }
+
+    private void queue(Block block, int kind) {
+        changes.add(new BlockChange(kind, block.getWorld().getName(), block.getX(), block.getY(), block.getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Block block = event.getBlock();
+        queue(block, block.getType() == configSettings.getSealedRoomGenerator()
+                ? BlockChange.GENERATOR_PLACED : BlockChange.BLOCK_CHANGED);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        // A broken generator is noticed by the fill that follows
+        if (enabled) {
+            queue(event.getBlock(), BlockChange.BLOCK_CHANGED);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        if (enabled) {
+            for (Block block : event.blockList()) {
+                queue(block, BlockChange.BLOCK_CHANGED);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        if (enabled) {
+            for (Block block : event.blockList()) {
+                queue(block, BlockChange.BLOCK_CHANGED);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (enabled && waitingForChunks) {
+            changes.add(new BlockChange(BlockChange.CHUNK_LOADED, event.getChunk().getWorld().getName(),
+                    event.getChunk().getX(), 0, event.getChunk().getZ()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        if (enabled && waitingForChunks) {
+            // Every chunk of the world counts as loaded
+            changes.add(new BlockChange(BlockChange.CHUNK_LOADED, event.getWorld().getName(),
+                    Integer.MIN_VALUE, 0, Integer.MIN_VALUE));
+        }
+    }
+
+    private static String key(String worldName, int x, int y, int z) {
+        return worldName + ":" + x + "," + y + "," + z;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A generator block and its room. Only touched on the global thread.
+     */
+    private static final class Generator {
+        private final String worldName;
+        private final int x, y, z;
+        // Null unless sealed
+        private PressurizedVolume volume;
+        private boolean filling;
+        private boolean fillAgain;
+
+        private Generator(String worldName, int x, int y, int z) {
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private String getKey() {
+            return key(worldName, x, y, z);
+        }
+
+        /**
+         * Checks if a changed block may change this generator's room
+         */
+        private boolean isAffectedBy(int blockX, int blockY, int blockZ, int radius) {
+            if (volume != null) {
+                // The generator itself, a block in the room, or a wall around it
+                return (blockX == x && blockY == y && blockZ == z) || volume.touches(blockX, blockY, blockZ);
+            }
+            // A leaking room may be closed anywhere in the searched area
+            return Math.abs(blockX - x) <= radius + 1 && Math.abs(blockY - y) <= radius + 1
+                    && Math.abs(blockZ - z) <= radius + 1;
+        }
+
+        @Override
+        public String toString() {
+            return "generator at " + getKey();
+        }
+    }
+
+    /**
+     * A block change, chunk load or world load, queued for the global thread
+     */
+    private static final class BlockChange {
+        private static final int GENERATOR_PLACED = 0;
+        private static final int BLOCK_CHANGED = 1;
+        // x and z are chunk coordinates, or Integer.MIN_VALUE for a whole world
+        private static final int CHUNK_LOADED = 2;
+
+        private final int kind;
+        private final String worldName;
+        private final int x, y, z;
+
+        private BlockChange(int kind, String worldName, int x, int y, int z) {
+            this.kind = kind;
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+}
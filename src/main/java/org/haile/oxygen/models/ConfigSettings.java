@@ -1,9 +1,11 @@
 package org.haile.oxygen.models;
 
 import org.bukkit.GameMode;
+import org.bukkit.Material;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.haile.oxygen.rooms.RoomFloodFill;
 import org.haile.oxygen.utils.ConfigUtils;
 
 import java.util.HashSet;
@@ -19,6 +21,9 @@ public class ConfigSettings {
     private int maxOxygenLevel;
     private int decreaseRate;
     private int damageAmount;
+    private double damageScalingPerSecond;
+    private double damageScalingMax;
+    private String deathMessage;
     private Set<GameMode> allowedGameModes;
     private Set<String> allowedWorlds;
     private boolean worldsAreWhitelist;
@@ -37,12 +42,48 @@ public class ConfigSettings {
 
     // Storage settings
     private String storageType;
+    private int flushInterval;
+    private int storageQueueCapacity;
+    private long shutdownTimeoutMillis;
+    private long journalCompactAfter;
+    private int mappedInitialCapacity;
+    private int shardPrefixLength;
+    private int shardWriteThreads;
+    private long prefetchTtlMillis;
+    private int offlineCacheSize;
+    private int migrationBatchSize;
     private String mysqlHost;
     private int mysqlPort;
     private String mysqlDatabase;
     private String mysqlUsername;
     private String mysqlPassword;
     private String mysqlTablePrefix;
+    private int mysqlPoolSize;
+
+    // Performance settings
+    private int parallelThreshold;
+    private int computeThreads;
+    private long tickBudgetMicros;
+
+    // Region settings
+    private int regionIndexRefreshTicks;
+    private boolean regionNameFallback;
+    private String regionProvider;
+
+    // Sealed room settings
+    private boolean sealedRoomsEnabled;
+    private Material sealedRoomGenerator;
+    private int sealedRoomRadius;
+    private int sealedRoomMaxVolume;
+    private double sealedRoomRefillRate;
+
+    // Low oxygen effect settings
+    private int effectRefreshTicks;
+
+    // Catch-up settings for time spent offline
+    private String catchUpPolicy;
+    private double catchUpDrainMultiplier;
+    private double catchUpRefillPerMinute;
 
     private boolean enableBossbar;
 
@@ -54,6 +95,9 @@ public class ConfigSettings {
         this.maxOxygenLevel = 100;
         this.decreaseRate = 100;
         this.damageAmount = 20;
+        this.damageScalingPerSecond = 0.0;
+        this.damageScalingMax = 4.0;
+        this.deathMessage = "";
 
         this.allowedGameModes = new HashSet<>();
         this.allowedGameModes.add(GameMode.SURVIVAL);
@@ -74,12 +118,38 @@ public class ConfigSettings {
         this.notificationsEnabled = true;
 
         this.storageType = "file";
+        this.flushInterval = 600;
+        this.storageQueueCapacity = 64;
+        this.shutdownTimeoutMillis = 10000L;
+        this.journalCompactAfter = 100000L;
+        this.mappedInitialCapacity = 65536;
+        this.shardPrefixLength = 2;
+        this.shardWriteThreads = 4;
+        this.prefetchTtlMillis = 30000L;
+        this.offlineCacheSize = 1000;
+        this.migrationBatchSize = 500;
         this.mysqlHost = "localhost";
         this.mysqlPort = 3306;
         this.mysqlDatabase = "minecraft";
         this.mysqlUsername = "root";
         this.mysqlPassword = "password";
         this.mysqlTablePrefix = "oxygen_";
+        this.mysqlPoolSize = 4;
+        this.parallelThreshold = 64;
+        this.computeThreads = 0;
+        this.tickBudgetMicros = 0L;
+        this.effectRefreshTicks = 20;
+        this.regionIndexRefreshTicks = 100;
+        this.regionNameFallback = true;
+        this.regionProvider = "worldguard";
+        this.sealedRoomsEnabled = false;
+        this.sealedRoomGenerator = Material.BEACON;
+        this.sealedRoomRadius = 32;
+        this.sealedRoomMaxVolume = 8192;
+        this.sealedRoomRefillRate = 0.0;
+        this.catchUpPolicy = "freeze";
+        this.catchUpDrainMultiplier = 1.0;
+        this.catchUpRefillPerMinute = 20.0;
         this.enableBossbar = true;
     }
 
@@ -94,6 +164,9 @@ public class ConfigSettings {
         this.maxOxygenLevel = config.getInt("oxygen.max-level", 100);
         this.decreaseRate = config.getInt("oxygen.decrease-rate", 100);
         this.damageAmount = config.getInt("oxygen.damage", 20);
+        this.damageScalingPerSecond = Math.max(0.0, config.getDouble("oxygen.damage-scaling.per-second", 0.0));
+        this.damageScalingMax = Math.max(1.0, config.getDouble("oxygen.damage-scaling.max", 4.0));
+        this.deathMessage = config.getString("oxygen.death-message", "");
         this.enableBossbar = config.getBoolean("display.enable", true);
         // Load allowed gamemodes
         this.allowedGameModes.clear();
@@ -145,16 +218,65 @@ public class ConfigSettings {
 
         // Storage settings
         this.storageType = config.getString("storage.type", "file");
+        this.flushInterval = Math.max(20, config.getInt("storage.flush-interval", 600));
+        this.storageQueueCapacity = Math.max(1, config.getInt("storage.queue-capacity", 64));
+        this.shutdownTimeoutMillis = Math.max(0L, config.getLong("storage.shutdown-timeout", 10000L));
+        this.journalCompactAfter = Math.max(1000L, config.getLong("storage.journal.compact-after", 100000L));
+        this.mappedInitialCapacity = config.getInt("storage.mapped.initial-capacity", 65536);
+        this.shardPrefixLength = Math.max(1, Math.min(3, config.getInt("storage.sharded.prefix-length", 2)));
+        this.shardWriteThreads = Math.max(1, config.getInt("storage.sharded.write-threads", 4));
+        this.prefetchTtlMillis = Math.max(1000L, config.getLong("storage.prefetch-ttl", 30000L));
+        this.offlineCacheSize = Math.max(0, config.getInt("storage.offline-cache-size", 1000));
+        this.migrationBatchSize = Math.max(1, config.getInt("storage.migration.batch-size", 500));
+
+        // Table prefix is shared by all SQL backends
+        this.mysqlTablePrefix = config.getString("storage.mysql.table-prefix", "oxygen_");
+
+        // MySQL settings, also needed when MySQL is only the source or target of a migration
+        this.mysqlHost = config.getString("storage.mysql.host", "localhost");
+        this.mysqlPort = config.getInt("storage.mysql.port", 3306);
+        this.mysqlDatabase = config.getString("storage.mysql.database", "minecraft");
+        this.mysqlUsername = config.getString("storage.mysql.username", "root");
+        this.mysqlPassword = config.getString("storage.mysql.password", "password");
+        this.mysqlPoolSize = Math.max(1, config.getInt("storage.mysql.pool-size", 4));
+
+        // Performance settings
+        this.parallelThreshold = Math.max(1, config.getInt("performance.parallel-threshold", 64));
+        this.computeThreads = Math.max(0, config.getInt("performance.compute-threads", 0));
+        this.tickBudgetMicros = Math.max(0L, config.getLong("performance.tick-budget-micros", 0L));
+
+        // Region settings
+        this.regionIndexRefreshTicks = Math.max(1, config.getInt("regions.index-refresh-ticks", 100));
+        this.regionNameFallback = config.getBoolean("regions.name-fallback", true);
+        this.regionProvider = config.getString("regions.provider", "worldguard").toLowerCase();
+        if (!regionProvider.equals("worldguard") && !regionProvider.equals("config")) {
+            logger.warning("Invalid region provider '" + regionProvider + "', using worldguard");
+            this.regionProvider = "worldguard";
+        }
 
-        // MySQL settings
-        if (this.storageType.equalsIgnoreCase("mysql")) {
-            this.mysqlHost = config.getString("storage.mysql.host", "localhost");
-            this.mysqlPort = config.getInt("storage.mysql.port", 3306);
-            this.mysqlDatabase = config.getString("storage.mysql.database", "minecraft");
-            this.mysqlUsername = config.getString("storage.mysql.username", "root");
-            this.mysqlPassword = config.getString("storage.mysql.password", "password");
-            this.mysqlTablePrefix = config.getString("storage.mysql.table-prefix", "oxygen_");
+        // Sealed room settings
+        this.sealedRoomsEnabled = config.getBoolean("sealed-rooms.enabled", false);
+        String generator = config.getString("sealed-rooms.generator", "BEACON");
+        this.sealedRoomGenerator = Material.matchMaterial(generator);
+        if (sealedRoomGenerator == null || !sealedRoomGenerator.isBlock()) {
+            logger.warning("Invalid oxygen generator block '" + generator + "', using BEACON");
+            this.sealedRoomGenerator = Material.BEACON;
         }
+        this.sealedRoomRadius = Math.max(1, Math.min(RoomFloodFill.MAX_RADIUS, config.getInt("sealed-rooms.radius", 32)));
+        this.sealedRoomMaxVolume = Math.max(1, config.getInt("sealed-rooms.max-volume", 8192));
+        this.sealedRoomRefillRate = Math.max(0.0, config.getDouble("sealed-rooms.refill-rate", 0.0));
+
+        // Low oxygen effect settings
+        this.effectRefreshTicks = Math.max(1, config.getInt("low-oxygen-effects.refresh-before", 20));
+
+        // Catch-up settings
+        this.catchUpPolicy = config.getString("catch-up.policy", "freeze").toLowerCase();
+        if (!catchUpPolicy.equals("freeze") && !catchUpPolicy.equals("drain") && !catchUpPolicy.equals("refill")) {
+            logger.warning("Invalid catch-up policy '" + catchUpPolicy + "', using freeze");
+            this.catchUpPolicy = "freeze";
+        }
+        this.catchUpDrainMultiplier = Math.max(0.0, config.getDouble("catch-up.drain-multiplier", 1.0));
+        this.catchUpRefillPerMinute = Math.max(0.0, config.getDouble("catch-up.refill-per-minute", 20.0));
 
         logger.info("Loaded ConfigSettings - Max Oxygen: " + maxOxygenLevel +
                 ", Decrease Rate: " + decreaseRate +
@@ -175,6 +297,18 @@ public class ConfigSettings {
         return damageAmount;
     }
 
+    public double getDamageScalingPerSecond() {
+        return damageScalingPerSecond;
+    }
+
+    public double getDamageScalingMax() {
+        return damageScalingMax;
+    }
+
+    public String getDeathMessage() {
+        return deathMessage;
+    }
+
     public Set<GameMode> getAllowedGameModes() {
         return allowedGameModes;
     }
@@ -223,6 +357,142 @@ public class ConfigSettings {
         return storageType;
     }
 
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getStorageQueueCapacity() {
+        return storageQueueCapacity;
+    }
+
+    public long getShutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+
+    public long getJournalCompactAfter() {
+        return journalCompactAfter;
+    }
+
+    public int getMappedInitialCapacity() {
+        return mappedInitialCapacity;
+    }
+
+    public int getShardPrefixLength() {
+        return shardPrefixLength;
+    }
+
+    public int getShardWriteThreads() {
+        return shardWriteThreads;
+    }
+
+    public long getPrefetchTtlMillis() {
+        return prefetchTtlMillis;
+    }
+
+    public int getOfflineCacheSize() {
+        return offlineCacheSize;
+    }
+
+    public int getMigrationBatchSize() {
+        return migrationBatchSize;
+    }
+
+    public long getTickBudgetMicros() {
+        return tickBudgetMicros;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Gets how often WorldGuard regions are checked for changes to rebuild the region index
+     * @return Interval in ticks
+     */
+    public int getRegionIndexRefreshTicks() {
+        return regionIndexRefreshTicks;
+    }
+
+    /**
+     * Checks if regions with "spaceship" in their name count as oxygen zones without the oxygen-zone flag
+     * @return True if region names are matched
+     */
+    public boolean isRegionNameFallback() {
+        return regionNameFallback;
+    }
+
+    /**
+     * Gets where oxygen regions come from
+     * @return "worldguard" or "config"
+     */
+    public String getRegionProvider() {
+        return regionProvider;
+    }
+
+    public boolean isSealedRoomsEnabled() {
+        return sealedRoomsEnabled;
+    }
+
+    /**
+     * Gets the block that pressurizes the sealed room around it
+     * @return Generator material
+     */
+    public Material getSealedRoomGenerator() {
+        return sealedRoomGenerator;
+    }
+
+    /**
+     * Gets how far a sealed room may reach from its generator on each axis
+     * @return Radius in blocks
+     */
+    public int getSealedRoomRadius() {
+        return sealedRoomRadius;
+    }
+
+    /**
+     * Gets the most air blocks a sealed room may have
+     * @return Maximum volume in blocks
+     */
+    public int getSealedRoomMaxVolume() {
+        return sealedRoomMaxVolume;
+    }
+
+    /**
+     * Gets how fast oxygen refills inside sealed rooms
+     * @return Oxygen per second
+     */
+    public double getSealedRoomRefillRate() {
+        return sealedRoomRefillRate;
+    }
+
+    public int getEffectRefreshTicks() {
+        return effectRefreshTicks;
+    }
+
+    /**
+     * Gets what happens to oxygen while a player is offline
+     * @return "freeze", "drain" or "refill"
+     */
+    public String getCatchUpPolicy() {
+        return catchUpPolicy;
+    }
+
+    public double getCatchUpDrainMultiplier() {
+        return catchUpDrainMultiplier;
+    }
+
+    public double getCatchUpRefillPerMinute() {
+        return catchUpRefillPerMinute;
+    }
+
+    /**
+     * Gets the number of threads computing oxygen checks in parallel
+     * @return Configured thread count, or one less than the number of cores if set to 0
+     */
+    public int getComputeThreads() {
+        return computeThreads > 0 ? computeThreads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
     public String getMysqlHost() {
         return mysqlHost;
     }
@@ -247,6 +517,10 @@ public class ConfigSettings {
         return mysqlTablePrefix;
     }
 
+    public int getMysqlPoolSize() {
+        return mysqlPoolSize;
+    }
+
     public boolean isEnableBossbar() {
         return enableBossbar;
     }
@@ -0,0 +1,46 @@
+package org.haile.oxygen.models;
+
+import org.bukkit.potion.PotionEffect;
+
+/**
+ * Potion effects given to players whose oxygen is below a threshold.
+ * The effects are created once when the config is loaded and reused for every player.
+ */
+public class EffectTier {
+    private final String id;
+    private final int belowLevel;
+    private final int duration;
+    private final PotionEffect[] effects;
+
+    public EffectTier(String id, int belowLevel, int duration, PotionEffect[] effects) {
+        this.id = id;
+        this.belowLevel = belowLevel;
+        this.duration = duration;
+        this.effects = effects;
+    }
+
+    /**
+     * Checks whether a player at an oxygen level is in this tier
+     * @param oxygenLevel The player's whole oxygen level
+     * @return True if the level is below the tier's threshold
+     */
+    public boolean appliesTo(int oxygenLevel) {
+        return oxygenLevel < belowLevel;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getBelowLevel() {
+        return belowLevel;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public PotionEffect[] getEffects() {
+        return effects;
+    }
+}
@@ -0,0 +1,76 @@
+package org.haile.oxygen.models;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Set;
+
+/**
+ * An item that changes how fast its wearer consumes oxygen.
+ * An item matches when it is in one of the slots and every configured
+ * condition (material, custom model data, PDC tag) holds.
+ */
+public class EquipmentModifier {
+    private final String id;
+    private final Material material; // null = any material
+    private final Integer customModelData; // null = not checked
+    private final NamespacedKey pdcKey; // null = not checked
+    private final Set<EquipmentSlot> slots;
+    private final double multiplier;
+
+    public EquipmentModifier(String id, Material material, Integer customModelData, NamespacedKey pdcKey,
+                             Set<EquipmentSlot> slots, double multiplier) {
+        this.id = id;
+        this.material = material;
+        this.customModelData = customModelData;
+        this.pdcKey = pdcKey;
+        this.slots = slots;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Checks whether an item in a slot matches this modifier
+     * @param slot Slot the item is in
+     * @param item The item, may be null
+     * @return True if the modifier applies
+     */
+    public boolean matches(EquipmentSlot slot, ItemStack item) {
+        if (item == null || !slots.contains(slot)) {
+            return false;
+        }
+        if (material != null && item.getType() != material) {
+            return false;
+        }
+        if (customModelData == null && pdcKey == null) {
+            return true;
+        }
+
+        ItemMeta meta = item.hasItemMeta() ? item.getItemMeta() : null;
+        if (meta == null) {
+            return false;
+        }
+        if (customModelData != null && (!meta.hasCustomModelData() || meta.getCustomModelData() != customModelData)) {
+            return false;
+        }
+        return pdcKey == null || meta.getPersistentDataContainer().has(pdcKey);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Set<EquipmentSlot> getSlots() {
+        return slots;
+    }
+
+    /**
+     * Gets the consumption multiplier, e.g. 0.2 makes oxygen last five times longer
+     * @return Consumption multiplier
+     */
+    public double getMultiplier() {
+        return multiplier;
+    }
+}
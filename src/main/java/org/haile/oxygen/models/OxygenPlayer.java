@@ -8,10 +8,25 @@ import java.util.UUID;
  * Class representing a player with oxygen data
  */
 public class OxygenPlayer {
+    // Oxygen is kept in fixed-point micro-units, so fractional consumption rates add up exactly
+    public static final long UNIT = 1_000_000L;
+
     private final UUID playerId;
     private final String playerName;
-    private int oxygenLevel;
+    // Written by the thread owning the player, read by flushes and placeholders
+    private volatile long oxygenMicros;
     private int lastWarningLevel;
+    // Plugin tick up to which consumption has been applied, -1 while not consuming
+    private volatile long lastUpdateTick = -1L;
+    // Epoch millis of the last update, stored with records for catch-up
+    private volatile long lastUpdateMillis = System.currentTimeMillis();
+    // Combined multiplier of the player's equipment, cached by EquipmentModifierManager
+    private volatile double consumptionMultiplier = 1.0;
+    // Plugin tick the player ran out of oxygen at, -1 while they have some left
+    private long depletedSinceTick = -1L;
+    // Low oxygen effects currently given to the player and the tick to refresh them at
+    private EffectTier effectTier;
+    private long effectRefreshTick;
 
     /**
      * Constructor from a Player object
@@ -22,7 +37,7 @@ public class OxygenPlayer {
     public OxygenPlayer(Player player, int startingOxygen) {
         this.playerId = player.getUniqueId();
         this.playerName = player.getName();
-        this.oxygenLevel = startingOxygen;
+        this.oxygenMicros = startingOxygen * UNIT;
         this.lastWarningLevel = 100; // Start with full oxygen as last warning level
     }
 
@@ -36,7 +51,7 @@ public class OxygenPlayer {
     public OxygenPlayer(UUID playerId, String playerName, int oxygenLevel) {
         this.playerId = playerId;
         this.playerName = playerName;
-        this.oxygenLevel = oxygenLevel;
+        this.oxygenMicros = oxygenLevel * UNIT;
         this.lastWarningLevel = 100;
     }
 
@@ -57,11 +72,11 @@ public class OxygenPlayer {
     }
 
     /**
-     * Get current oxygen level
-     * @return Current oxygen level
+     * Get current oxygen level, rounded up so that 0 means really out of oxygen
+     * @return Current oxygen level in whole units
      */
     public int getOxygenLevel() {
-        return oxygenLevel;
+        return toLevel(oxygenMicros);
     }
 
     /**
@@ -69,7 +84,26 @@ public class OxygenPlayer {
      * @param oxygenLevel New oxygen level
      */
     public void setOxygenLevel(int oxygenLevel) {
-        this.oxygenLevel = oxygenLevel;
+        setOxygenMicros(oxygenLevel * UNIT);
+    }
+
+    /**
+     * Get the exact oxygen amount
+     * @return Oxygen in micro-units
+     */
+    public long getOxygenMicros() {
+        return oxygenMicros;
+    }
+
+    /**
+     * Set the exact oxygen amount
+     * @param oxygenMicros Oxygen in micro-units
+     */
+    public void setOxygenMicros(long oxygenMicros) {
+        this.oxygenMicros = Math.max(0L, oxygenMicros);
+        if (this.oxygenMicros > 0) {
+            depletedSinceTick = -1L;
+        }
     }
 
     /**
@@ -77,7 +111,18 @@ public class OxygenPlayer {
      * @param amount Amount to decrease
      */
     public void decreaseOxygen(int amount) {
-        this.oxygenLevel = Math.max(0, this.oxygenLevel - amount);
+        consumeMicros(amount * UNIT);
+    }
+
+    /**
+     * Decrease oxygen by a fractional amount
+     * @param micros Amount to decrease in micro-units
+     */
+    public void consumeMicros(long micros) {
+        this.oxygenMicros = Math.max(0L, this.oxygenMicros - micros);
+        if (this.oxygenMicros > 0) {
+            depletedSinceTick = -1L;
+        }
     }
 
     /**
@@ -86,7 +131,16 @@ public class OxygenPlayer {
      * @param maxOxygen Maximum oxygen level
      */
     public void increaseOxygen(int amount, int maxOxygen) {
-        this.oxygenLevel = Math.min(maxOxygen, this.oxygenLevel + amount);
+        setOxygenMicros(Math.min(maxOxygen * UNIT, this.oxygenMicros + amount * UNIT));
+    }
+
+    /**
+     * Converts micro-units to the whole level shown to players
+     * @param micros Oxygen in micro-units
+     * @return Level rounded up
+     */
+    public static int toLevel(long micros) {
+        return (int) ((micros + UNIT - 1) / UNIT);
     }
 
     /**
@@ -104,4 +158,89 @@ public class OxygenPlayer {
     public void setLastWarningLevel(int lastWarningLevel) {
         this.lastWarningLevel = lastWarningLevel;
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the plugin tick up to which consumption has been applied
+     * @return Tick of the last update, or -1 while not consuming
+     */
+    public long getLastUpdateTick() {
+        return lastUpdateTick;
+    }
+
+    /**
+     * Set the plugin tick up to which consumption has been applied
+     * @param lastUpdateTick Tick of the last update, or -1 to stop the clock
+     */
+    public void setLastUpdateTick(long lastUpdateTick) {
+        this.lastUpdateMillis = System.currentTimeMillis();
+        this.lastUpdateTick = lastUpdateTick;
+    }
+
+    /**
+     * Get the time the oxygen level is up to date at.
+     * While consuming, that is the last update; consumption since then is not applied yet.
+     * While the clock is stopped nothing is consumed, so the level is up to date right now.
+     * @return Epoch millis
+     */
+    public long getSimulatedAt() {
+        return lastUpdateTick >= 0 ? lastUpdateMillis : System.currentTimeMillis();
+    }
+
+    /**
+     * Get the cached oxygen consumption multiplier of the player's equipment
+     * @return Consumption multiplier, 1.0 without modifiers
+     */
+    public double getConsumptionMultiplier() {
+        return consumptionMultiplier;
+    }
+
+    /**
+     * Set the cached oxygen consumption multiplier
+     * @param consumptionMultiplier New consumption multiplier
+     */
+    public void setConsumptionMultiplier(double consumptionMultiplier) {
+        this.consumptionMultiplier = consumptionMultiplier;
+    }
+
+    /**
+     * Get the plugin tick the player ran out of oxygen at. Reset whenever oxygen is given back.
+     * @return Tick oxygen reached 0, or -1 if the player has oxygen
+     */
+    public long getDepletedSinceTick() {
+        return depletedSinceTick;
+    }
+
+    /**
+     * Set the plugin tick the player ran out of oxygen at
+     * @param depletedSinceTick Tick oxygen reached 0, or -1 if the player has oxygen
+     */
+    public void setDepletedSinceTick(long depletedSinceTick) {
+        this.depletedSinceTick = depletedSinceTick;
+    }
+
+    /**
+     * Get the low oxygen effect tier currently applied
+     * @return Applied tier, or null if none
+     */
+    public EffectTier getEffectTier() {
+        return effectTier;
+    }
+
+    /**
+     * Get the plugin tick at which the applied effects should be refreshed
+     * @return Refresh tick, only meaningful while a tier is applied
+     */
+    public long getEffectRefreshTick() {
+        return effectRefreshTick;
+    }
+
+    /**
+     * Record the low oxygen effects applied to the player
+     * @param effectTier Applied tier, or null if none
+     * @param effectRefreshTick Plugin tick to refresh them at
+     */
+    public void setEffectTier(EffectTier effectTier, long effectRefreshTick) {
+        this.effectTier = effectTier;
+        this.effectRefreshTick = effectRefreshTick;
+    }
+}
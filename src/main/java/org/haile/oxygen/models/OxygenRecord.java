@@ -0,0 +1,56 @@
+package org.haile.oxygen.models;
+
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a player's persisted oxygen data.
+ * Captured on the main thread and handed to the storage thread.
+ */
+public final class OxygenRecord {
+    private final UUID playerId;
+    private final String playerName;
+    private final int oxygenLevel;
+    // Epoch millis the level was last simulated at, 0 if unknown
+    private final long updatedAt;
+
+    public OxygenRecord(UUID playerId, String playerName, int oxygenLevel) {
+        this(playerId, playerName, oxygenLevel, 0L);
+    }
+
+    public OxygenRecord(UUID playerId, String playerName, int oxygenLevel, long updatedAt) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.oxygenLevel = oxygenLevel;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Creates a snapshot of an in-memory oxygen player
+     * @param oxygenPlayer The oxygen player
+     * @return Immutable record
+     */
+    public static OxygenRecord of(OxygenPlayer oxygenPlayer) {
+        return new OxygenRecord(oxygenPlayer.getPlayerId(), oxygenPlayer.getPlayerName(), oxygenPlayer.getOxygenLevel(),
+                oxygenPlayer.getSimulatedAt());
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public int getOxygenLevel() {
+        return oxygenLevel;
+    }
+
+    /**
+     * Gets the time the level was last simulated at, used to catch up on time spent offline
+     * @return Epoch millis, or 0 for records saved before timestamps were stored
+     */
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,48 @@
+package org.haile.oxygen.models;
+
+/**
+ * Oxygen settings resolved from the regions at a position.
+ * Resolved once per region when the region index is built and shared by every
+ * player standing in it; only overlapping regions need a merged instance.
+ */
+public final class OxygenZone {
+    /**
+     * No region with oxygen settings: players consume oxygen at the normal rate
+     */
+    public static final OxygenZone NONE = new OxygenZone(false, 0.0, 1.0);
+
+    private final boolean oxygenZone;
+    private final double refillPerSecond;
+    private final double consumptionMultiplier;
+
+    public OxygenZone(boolean oxygenZone, double refillPerSecond, double consumptionMultiplier) {
+        this.oxygenZone = oxygenZone;
+        this.refillPerSecond = Math.max(0.0, refillPerSecond);
+        this.consumptionMultiplier = Math.max(0.0, consumptionMultiplier);
+    }
+
+    /**
+     * Checks if players here are protected from oxygen loss
+     * @return True inside an oxygen zone
+     */
+    public boolean isOxygenZone() {
+        return oxygenZone;
+    }
+
+    /**
+     * Gets how fast oxygen refills inside an oxygen zone
+     * @return Oxygen per second, 0 if it does not refill
+     */
+    public double getRefillPerSecond() {
+        return refillPerSecond;
+    }
+
+    /**
+     * Gets the multiplier applied to consumption outside an oxygen zone,
+     * on top of equipment modifiers
+     * @return Consumption multiplier
+     */
+    public double getConsumptionMultiplier() {
+        return consumptionMultiplier;
+    }
+}
@@ -7,6 +7,7 @@ import org.bukkit.entity.Player;
 import org.haile.oxygen.Oxygen;
 import org.haile.oxygen.managers.OxygenPlayerManager;
 import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.models.OxygenRecord;
 import org.jetbrains.annotations.NotNull;
 
 public class OxygenPlaceholderExpansion extends PlaceholderExpansion {
@@ -44,9 +45,9 @@ public class OxygenPlaceholderExpansion extends PlaceholderExpansion {
 
     @Override
     public String onRequest(OfflinePlayer offlinePlayer, @NotNull String params) {
-        // Only work with online players for oxygen data
+        // Offline players only expose their saved level, read through the offline cache
         if (!(offlinePlayer instanceof Player)) {
-            return "N/A";
+            return offlinePlayer != null ? requestOffline(offlinePlayer, params) : "N/A";
         }
 
         Player player = (Player) offlinePlayer;
@@ -135,6 +136,25 @@ public class OxygenPlaceholderExpansion extends PlaceholderExpansion {
         }
     }
 
+    /**
+     * Resolves level placeholders for an offline player.
+     * A cache miss starts loading the player and returns N/A until the data is in memory.
+     */
+    private String requestOffline(OfflinePlayer offlinePlayer, String params) {
+        String key = params.toLowerCase();
+        if (!key.equals("current") && !key.equals("level")) {
+            return "N/A";
+        }
+
+        OxygenPlayerManager oxygenManager = plugin.getOxygenManager();
+        if (oxygenManager == null) {
+            return "Error";
+        }
+
+        OxygenRecord record = oxygenManager.getOfflineCache().getOrLoad(offlinePlayer.getUniqueId());
+        return record != null ? String.valueOf(record.getOxygenLevel()) : "N/A";
+    }
+
     /**
      * Creates a visual progress bar
      * @param current Current value
@@ -0,0 +1,35 @@
+package org.haile.oxygen.regions;
+
+import org.bukkit.World;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cuboid regions defined under regions.cuboids in config.yml, for servers without WorldGuard.
+ * The regions only change on reload, which creates a new provider.
+ */
+public class ConfigRegionProvider implements RegionProvider {
+    // World name -> regions
+    private final Map<String, List<OxygenRegion>> regions;
+
+    public ConfigRegionProvider(Map<String, List<OxygenRegion>> regions) {
+        this.regions = regions;
+    }
+
+    @Override
+    public String getName() {
+        return "config";
+    }
+
+    @Override
+    public long getFingerprint(World world) {
+        return getRegions(world).size();
+    }
+
+    @Override
+    public List<OxygenRegion> getRegions(World world) {
+        return regions.getOrDefault(world.getName(), Collections.emptyList());
+    }
+}
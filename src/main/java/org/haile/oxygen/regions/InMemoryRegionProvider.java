@@ -0,0 +1,72 @@
+package org.haile.oxygen.regions;
+
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Regions kept in memory and added from code.
+ * Needs no WorldGuard and no config, so a load test can fill it with thousands of
+ * synthetic regions and measure {@link RegionIndex} lookups on their own.
+ */
+public class InMemoryRegionProvider implements RegionProvider {
+    private final Map<UUID, List<OxygenRegion>> regions = new HashMap<>();
+    // Bumped on every change of a world
+    private final Map<UUID, Long> versions = new HashMap<>();
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    /**
+     * Adds a region to a world
+     * @param worldId The world's UID
+     * @param region The region
+     */
+    public synchronized void addRegion(UUID worldId, OxygenRegion region) {
+        regions.computeIfAbsent(worldId, key -> new ArrayList<>()).add(region);
+        versions.merge(worldId, 1L, Long::sum);
+    }
+
+    /**
+     * Removes a region from a world
+     * @param worldId The world's UID
+     * @param id The region id
+     * @return True if a region was removed
+     */
+    public synchronized boolean removeRegion(UUID worldId, String id) {
+        List<OxygenRegion> worldRegions = regions.get(worldId);
+        if (worldRegions == null || !worldRegions.removeIf(region -> region.getId().equals(id))) {
+            return false;
+        }
+        versions.merge(worldId, 1L, Long::sum);
+        return true;
+    }
+
+    /**
+     * Removes every region of every world
+     */
+    public synchronized void clear() {
+        for (UUID worldId : regions.keySet()) {
+            versions.merge(worldId, 1L, Long::sum);
+        }
+        regions.clear();
+    }
+
+    @Override
+    public synchronized long getFingerprint(World world) {
+        return versions.getOrDefault(world.getUID(), 0L);
+    }
+
+    @Override
+    public synchronized List<OxygenRegion> getRegions(World world) {
+        List<OxygenRegion> worldRegions = regions.get(world.getUID());
+        return worldRegions != null ? new ArrayList<>(worldRegions) : Collections.emptyList();
+    }
+}
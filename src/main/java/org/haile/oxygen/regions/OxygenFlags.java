@@ -0,0 +1,83 @@
+package org.haile.oxygen.regions;
+
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.protection.flags.DoubleFlag;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.flags.StateFlag;
+import com.sk89q.worldguard.protection.flags.registry.FlagConflictException;
+import com.sk89q.worldguard.protection.flags.registry.FlagRegistry;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+
+import java.util.logging.Logger;
+
+/**
+ * WorldGuard flags that configure oxygen per region:
+ * <pre>
+ * /rg flag spaceship oxygen-zone allow
+ * /rg flag spaceship oxygen-refill-rate 5
+ * /rg flag toxic_cave oxygen-consumption-multiplier 2
+ * </pre>
+ * WorldGuard only accepts new flags before it is enabled, so {@link #register(Logger)}
+ * has to be called from the plugin's onLoad. A flag stays null if registration failed.
+ */
+public final class OxygenFlags {
+    private static StateFlag oxygenZone;
+    private static DoubleFlag refillRate;
+    private static DoubleFlag consumptionMultiplier;
+
+    private OxygenFlags() {
+    }
+
+    /**
+     * Registers the flags with WorldGuard, reusing flags of the same name and type
+     * that are already registered, e.g. after a plugin reload
+     * @param logger Logger for registration problems
+     */
+    public static void register(Logger logger) {
+        FlagRegistry registry = WorldGuard.getInstance().getFlagRegistry();
+        oxygenZone = register(registry, new StateFlag("oxygen-zone", false), StateFlag.class, logger);
+        refillRate = register(registry, new DoubleFlag("oxygen-refill-rate"), DoubleFlag.class, logger);
+        consumptionMultiplier = register(registry, new DoubleFlag("oxygen-consumption-multiplier"), DoubleFlag.class, logger);
+    }
+
+    private static <T extends Flag<?>> T register(FlagRegistry registry, T flag, Class<T> type, Logger logger) {
+        try {
+            registry.register(flag);
+            return flag;
+        } catch (FlagConflictException | IllegalStateException e) {
+            Flag<?> existing = registry.get(flag.getName());
+            if (type.isInstance(existing)) {
+                return type.cast(existing);
+            }
+            logger.warning("Could not register WorldGuard flag " + flag.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gets the oxygen-zone state of a region
+     * @param region The region
+     * @return The state, or null if not set
+     */
+    public static StateFlag.State getOxygenZone(ProtectedRegion region) {
+        return oxygenZone != null ? region.getFlag(oxygenZone) : null;
+    }
+
+    /**
+     * Gets the oxygen-refill-rate of a region
+     * @param region The region
+     * @return Oxygen refilled per second, or null if not set
+     */
+    public static Double getRefillRate(ProtectedRegion region) {
+        return refillRate != null ? region.getFlag(refillRate) : null;
+    }
+
+    /**
+     * Gets the oxygen-consumption-multiplier of a region
+     * @param region The region
+     * @return The multiplier, or null if not set
+     */
+    public static Double getConsumptionMultiplier(ProtectedRegion region) {
+        return consumptionMultiplier != null ? region.getFlag(consumptionMultiplier) : null;
+    }
+}
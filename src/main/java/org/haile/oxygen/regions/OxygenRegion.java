@@ -0,0 +1,118 @@
+package org.haile.oxygen.regions;
+
+import org.haile.oxygen.models.OxygenZone;
+
+/**
+ * A region with oxygen settings as handed to the {@link RegionIndex} by a {@link RegionProvider}.
+ * The base class is a cuboid; providers with other shapes override {@link #contains(int, int, int)}
+ * and {@link #isCuboid()}, and the index only calls the exact check for blocks inside the bounds.
+ * Settings a region does not define are null, so overlapping regions can fall back to lower priorities.
+ */
+public class OxygenRegion {
+    private final String id;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+    private final int priority;
+    private final Boolean oxygenZone;
+    private final Double refillRate;
+    private final Double consumptionMultiplier;
+
+    public OxygenRegion(String id, int x1, int y1, int z1, int x2, int y2, int z2, int priority,
+                        Boolean oxygenZone, Double refillRate, Double consumptionMultiplier) {
+        this.id = id;
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+        this.priority = priority;
+        this.oxygenZone = oxygenZone;
+        this.refillRate = refillRate;
+        this.consumptionMultiplier = consumptionMultiplier;
+    }
+
+    /**
+     * Checks if the region fills its bounding box, so the bounds alone decide {@link #contains}
+     * @return True for cuboids
+     */
+    public boolean isCuboid() {
+        return true;
+    }
+
+    /**
+     * Checks if a block is in the region
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @return True if the region contains the block
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * Gets this region's settings on their own, with defaults for what it does not set
+     * @return The resolved settings
+     */
+    public OxygenZone toZone() {
+        return new OxygenZone(Boolean.TRUE.equals(oxygenZone),
+                refillRate != null ? refillRate : 0.0,
+                consumptionMultiplier != null ? consumptionMultiplier : 1.0);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets whether the region is an oxygen zone
+     * @return True or false, null if the region does not say
+     */
+    public Boolean getOxygenZone() {
+        return oxygenZone;
+    }
+
+    /**
+     * Gets the oxygen refilled per second inside the zone
+     * @return The rate, null if not set
+     */
+    public Double getRefillRate() {
+        return refillRate;
+    }
+
+    /**
+     * Gets the consumption multiplier outside oxygen zones
+     * @return The multiplier, null if not set
+     */
+    public Double getConsumptionMultiplier() {
+        return consumptionMultiplier;
+    }
+}
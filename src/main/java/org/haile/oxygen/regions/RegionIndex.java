@@ -0,0 +1,295 @@
+package org.haile.oxygen.regions;
+
+import org.bukkit.World;
+import org.haile.oxygen.models.OxygenZone;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Plugin-side index of the regions with oxygen settings from a {@link RegionProvider}.
+ * Each region's settings are resolved once per build.
+ * Regions are bucketed by the chunks their bounding box overlaps, so a
+ * lookup is a hash probe into the chunk table plus a bounds check per region
+ * in that chunk. Only non-cuboid regions whose bounds contain the block need
+ * their exact check. Built from the provider's regions and swapped in as a whole,
+ * so lookups never see a half-built index and are safe from any thread.
+ */
+public class RegionIndex {
+    private final RegionProvider provider;
+
+    // World UID -> chunk table; replaced as a whole on rebuild
+    private volatile Map<UUID, ChunkTable> worlds = new HashMap<>();
+    // Cheap fingerprint of the regions the index was built from, per world
+    private final Map<UUID, Long> fingerprints = new HashMap<>();
+
+    public RegionIndex(RegionProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Gets the provider the index is built from
+     * @return The region provider
+     */
+    public RegionProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Gets the oxygen settings of a block
+     * @param world The world
+     * @param blockX Block X
+     * @param blockY Block Y
+     * @param blockZ Block Z
+     * @return The settings of the regions containing the block, {@link OxygenZone#NONE} if none
+     */
+    public OxygenZone lookup(World world, int blockX, int blockY, int blockZ) {
+        return lookup(world.getUID(), blockX, blockY, blockZ);
+    }
+
+    /**
+     * Gets the oxygen settings of a block
+     * @param worldId The world's UID
+     * @param blockX Block X
+     * @param blockY Block Y
+     * @param blockZ Block Z
+     * @return The settings of the regions containing the block, {@link OxygenZone#NONE} if none
+     */
+    public OxygenZone lookup(UUID worldId, int blockX, int blockY, int blockZ) {
+        ChunkTable table = worlds.get(worldId);
+        if (table == null) {
+            return OxygenZone.NONE;
+        }
+
+        Entry[] entries = table.get(chunkKey(blockX >> 4, blockZ >> 4));
+        if (entries == null) {
+            return OxygenZone.NONE;
+        }
+
+        // Nearly always a single region, whose settings were resolved when it was indexed
+        Entry found = null;
+        for (Entry entry : entries) {
+            if (entry.contains(blockX, blockY, blockZ)) {
+                if (found != null) {
+                    return merge(entries, blockX, blockY, blockZ);
+                }
+                found = entry;
+            }
+        }
+        return found != null ? found.zone : OxygenZone.NONE;
+    }
+
+    /**
+     * Resolves overlapping regions like WorldGuard does: each setting comes from
+     * the highest priority region that sets it
+     */
+    private static OxygenZone merge(Entry[] entries, int blockX, int blockY, int blockZ) {
+        Entry zone = null;
+        Entry refill = null;
+        Entry multiplier = null;
+        for (Entry entry : entries) {
+            if (!entry.contains(blockX, blockY, blockZ)) {
+                continue;
+            }
+            if (entry.oxygenZone != null && (zone == null || entry.priority > zone.priority)) {
+                zone = entry;
+            }
+            if (entry.refillRate != null && (refill == null || entry.priority > refill.priority)) {
+                refill = entry;
+            }
+            if (entry.multiplier != null && (multiplier == null || entry.priority > multiplier.priority)) {
+                multiplier = entry;
+            }
+        }
+        return new OxygenZone(zone != null && zone.oxygenZone,
+                refill != null ? refill.refillRate : 0.0,
+                multiplier != null ? multiplier.multiplier : 1.0);
+    }
+
+    /**
+     * Rebuilds the index of a world if its regions changed since the last build.
+     * Must not run concurrently with itself.
+     * @param world The world
+     * @return True if the world was rebuilt
+     */
+    public boolean refresh(World world) {
+        long fingerprint = provider.getFingerprint(world);
+
+        Long previous = fingerprints.get(world.getUID());
+        if (previous != null && previous == fingerprint) {
+            return false;
+        }
+
+        Map<UUID, ChunkTable> updated = new HashMap<>(worlds);
+        ChunkTable table = build(provider.getRegions(world));
+        if (table != null) {
+            updated.put(world.getUID(), table);
+        } else {
+            updated.remove(world.getUID());
+        }
+        worlds = updated;
+        fingerprints.put(world.getUID(), fingerprint);
+        return true;
+    }
+
+    /**
+     * Drops the index of every world that is no longer loaded
+     * @param loaded The loaded worlds
+     */
+    public void retain(Collection<World> loaded) {
+        Set<UUID> loadedIds = new HashSet<>();
+        for (World world : loaded) {
+            loadedIds.add(world.getUID());
+        }
+        if (loadedIds.containsAll(fingerprints.keySet())) {
+            return;
+        }
+
+        Map<UUID, ChunkTable> updated = new HashMap<>(worlds);
+        updated.keySet().retainAll(loadedIds);
+        worlds = updated;
+        fingerprints.keySet().retainAll(loadedIds);
+    }
+
+    /**
+     * Forgets every fingerprint so the next refresh rebuilds all worlds
+     */
+    public void invalidate() {
+        fingerprints.clear();
+    }
+
+    /**
+     * Gets the number of indexed regions over all worlds
+     * @return Region count
+     */
+    public int size() {
+        int size = 0;
+        for (ChunkTable table : worlds.values()) {
+            size += table.regionCount;
+        }
+        return size;
+    }
+
+    /**
+     * Builds the chunk table of a world, or null if it has no regions
+     */
+    private static ChunkTable build(List<OxygenRegion> regions) {
+        if (regions.isEmpty()) {
+            return null;
+        }
+
+        List<Entry> entries = new ArrayList<>(regions.size());
+        for (OxygenRegion region : regions) {
+            entries.add(new Entry(region));
+        }
+
+        Map<Long, List<Entry>> chunks = new HashMap<>();
+        for (Entry entry : entries) {
+            for (int chunkX = entry.minX >> 4; chunkX <= entry.maxX >> 4; chunkX++) {
+                for (int chunkZ = entry.minZ >> 4; chunkZ <= entry.maxZ >> 4; chunkZ++) {
+                    chunks.computeIfAbsent(chunkKey(chunkX, chunkZ), key -> new ArrayList<>(1)).add(entry);
+                }
+            }
+        }
+
+        ChunkTable table = new ChunkTable(chunks.size(), entries.size());
+        for (Map.Entry<Long, List<Entry>> chunk : chunks.entrySet()) {
+            table.put(chunk.getKey(), chunk.getValue().toArray(new Entry[0]));
+        }
+        return table;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Bounds and resolved settings of one indexed region. Cuboids are decided by the bounds alone.
+     */
+    private static final class Entry {
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+        private final OxygenRegion exact; // null for cuboids
+        private final int priority;
+        // Settings, null where the region does not set them
+        private final Boolean oxygenZone;
+        private final Double refillRate;
+        private final Double multiplier;
+        // This region's settings on their own
+        private final OxygenZone zone;
+
+        private Entry(OxygenRegion region) {
+            this.minX = region.getMinX();
+            this.minY = region.getMinY();
+            this.minZ = region.getMinZ();
+            this.maxX = region.getMaxX();
+            this.maxY = region.getMaxY();
+            this.maxZ = region.getMaxZ();
+            this.exact = region.isCuboid() ? null : region;
+            this.priority = region.getPriority();
+            this.oxygenZone = region.getOxygenZone();
+            this.refillRate = region.getRefillRate();
+            this.multiplier = region.getConsumptionMultiplier();
+            this.zone = region.toZone();
+        }
+
+        private boolean contains(int x, int y, int z) {
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                return false;
+            }
+            return exact == null || exact.contains(x, y, z);
+        }
+    }
+
+    /**
+     * Open-addressing table from chunk key to the regions overlapping that chunk.
+     * Read-only once built.
+     */
+    private static final class ChunkTable {
+        private final long[] keys;
+        private final Entry[][] values;
+        private final int mask;
+        private final int regionCount;
+
+        private ChunkTable(int chunkCount, int regionCount) {
+            int capacity = Integer.highestOneBit(Math.max(2, chunkCount * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.values = new Entry[capacity][];
+            this.mask = capacity - 1;
+            this.regionCount = regionCount;
+        }
+
+        private void put(long key, Entry[] entries) {
+            int slot = hash(key) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = entries;
+        }
+
+        private Entry[] get(long key) {
+            int slot = hash(key) & mask;
+            Entry[] entries;
+            while ((entries = values[slot]) != null) {
+                if (keys[slot] == key) {
+                    return entries;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.haile.oxygen.regions;
+
+import org.bukkit.World;
+
+import java.util.List;
+
+/**
+ * Source of the regions with oxygen settings.
+ * Players are never looked up through a provider: the {@link RegionIndex} polls
+ * {@link #getFingerprint(World)} and only asks for the regions of a world again
+ * when the fingerprint changed.
+ */
+public interface RegionProvider {
+
+    /**
+     * Gets the provider name used in logs
+     * @return Provider name
+     */
+    String getName();
+
+    /**
+     * Gets a cheap value that changes whenever the regions of a world change
+     * @param world The world
+     * @return Fingerprint of the world's regions
+     */
+    long getFingerprint(World world);
+
+    /**
+     * Gets every region of a world with oxygen settings
+     * @param world The world
+     * @return The regions, empty if there are none
+     */
+    List<OxygenRegion> getRegions(World world);
+}
@@ -0,0 +1,34 @@
+package org.haile.oxygen.regions;
+
+import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.utils.ConfigUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the region provider selected by regions.provider
+ */
+public class RegionProviders {
+    /**
+     * Provider types that can be set in config. The in-memory provider is only created from code.
+     */
+    public static final List<String> TYPES = Arrays.asList("worldguard", "config");
+
+    /**
+     * Creates a provider for a type
+     *
+     * @param type Provider type from config (worldguard, config)
+     * @param plugin Plugin instance
+     * @return The provider; config cuboids if WorldGuard is selected but not installed
+     */
+    public static RegionProvider create(String type, Oxygen plugin) {
+        if (type.equals("worldguard")) {
+            if (plugin.getServer().getPluginManager().isPluginEnabled("WorldGuard")) {
+                return new WorldGuardRegionProvider(plugin.getConfigSettings().isRegionNameFallback());
+            }
+            plugin.getLogger().warning("WorldGuard is not enabled, using the cuboids from regions.cuboids");
+        }
+        return new ConfigRegionProvider(ConfigUtils.loadCuboidRegions(plugin.getConfig(), plugin.getLogger()));
+    }
+}
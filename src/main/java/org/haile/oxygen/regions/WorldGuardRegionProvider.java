@@ -0,0 +1,126 @@
+package org.haile.oxygen.regions;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.protection.flags.StateFlag;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.protection.regions.RegionType;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * WorldGuard regions with one of the {@link OxygenFlags}, and optionally regions
+ * with "spaceship" in their name
+ */
+public class WorldGuardRegionProvider implements RegionProvider {
+    private static final String SPACESHIP_MARKER = "spaceship";
+
+    // Treat regions named like spaceships as oxygen zones when they do not set the flag
+    private final boolean nameFallback;
+
+    public WorldGuardRegionProvider(boolean nameFallback) {
+        this.nameFallback = nameFallback;
+    }
+
+    @Override
+    public String getName() {
+        return "worldguard";
+    }
+
+    /**
+     * Combines the ids, bounds, shapes, priorities and oxygen flags of all regions of a world.
+     * A changed region, or one added or removed, changes the fingerprint, which makes polling cheap.
+     */
+    @Override
+    public long getFingerprint(World world) {
+        RegionManager regionManager = getRegionManager(world);
+        if (regionManager == null) {
+            return 0L;
+        }
+
+        long fingerprint = regionManager.size();
+        for (ProtectedRegion region : regionManager.getRegions().values()) {
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            long hash = region.getId().hashCode();
+            hash = hash * 31 + min.getBlockX();
+            hash = hash * 31 + min.getBlockY();
+            hash = hash * 31 + min.getBlockZ();
+            hash = hash * 31 + max.getBlockX();
+            hash = hash * 31 + max.getBlockY();
+            hash = hash * 31 + max.getBlockZ();
+            hash = hash * 31 + region.getPoints().size();
+            hash = hash * 31 + region.getPriority();
+            hash = hash * 31 + Objects.hashCode(OxygenFlags.getOxygenZone(region));
+            hash = hash * 31 + Objects.hashCode(OxygenFlags.getRefillRate(region));
+            hash = hash * 31 + Objects.hashCode(OxygenFlags.getConsumptionMultiplier(region));
+            // Order independent, WorldGuard does not keep a stable iteration order
+            fingerprint += hash * 0x9E3779B97F4A7C15L;
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public List<OxygenRegion> getRegions(World world) {
+        RegionManager regionManager = getRegionManager(world);
+        if (regionManager == null) {
+            return Collections.emptyList();
+        }
+
+        List<OxygenRegion> regions = new ArrayList<>();
+        for (ProtectedRegion region : regionManager.getRegions().values()) {
+            if (!region.isPhysicalArea()) {
+                continue;
+            }
+
+            // Flags and names are read here, once per rebuild, instead of on every lookup
+            StateFlag.State state = OxygenFlags.getOxygenZone(region);
+            Boolean oxygenZone = state != null ? state == StateFlag.State.ALLOW : null;
+            if (oxygenZone == null && nameFallback && region.getId().toLowerCase().contains(SPACESHIP_MARKER)) {
+                oxygenZone = Boolean.TRUE;
+            }
+            Double refillRate = OxygenFlags.getRefillRate(region);
+            Double multiplier = OxygenFlags.getConsumptionMultiplier(region);
+            if (oxygenZone != null || refillRate != null || multiplier != null) {
+                regions.add(new WorldGuardRegion(region, oxygenZone, refillRate, multiplier));
+            }
+        }
+        return regions;
+    }
+
+    private static RegionManager getRegionManager(World world) {
+        return WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+    }
+
+    /**
+     * A WorldGuard region; polygons ask WorldGuard for blocks inside their bounds
+     */
+    private static final class WorldGuardRegion extends OxygenRegion {
+        private final ProtectedRegion region;
+
+        private WorldGuardRegion(ProtectedRegion region, Boolean oxygenZone, Double refillRate, Double multiplier) {
+            super(region.getId(),
+                    region.getMinimumPoint().getBlockX(), region.getMinimumPoint().getBlockY(),
+                    region.getMinimumPoint().getBlockZ(), region.getMaximumPoint().getBlockX(),
+                    region.getMaximumPoint().getBlockY(), region.getMaximumPoint().getBlockZ(),
+                    region.getPriority(), oxygenZone, refillRate, multiplier);
+            this.region = region;
+        }
+
+        @Override
+        public boolean isCuboid() {
+            return region.getType() == RegionType.CUBOID;
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            return region.contains(x, y, z);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.haile.oxygen.rooms;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Union of the pressurized volumes of every world, for lookups on the tick path.
+ * A lookup is a hash probe for the chunk, an array index for the section and a
+ * bit test, whatever the number of rooms. A world's table is rebuilt from its
+ * volumes and swapped in as a whole, so lookups are safe from any thread.
+ */
+public class PressurizedIndex {
+    // World UID -> table; replaced as a whole when a volume of the world changes
+    private volatile Map<UUID, WorldTable> worlds = new HashMap<>();
+
+    /**
+     * Checks if a block is in a sealed room
+     * @param worldId The world's UID
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @return True if the block is pressurized
+     */
+    public boolean contains(UUID worldId, int x, int y, int z) {
+        WorldTable table = worlds.get(worldId);
+        if (table == null) {
+            return false;
+        }
+        return PressurizedVolume.test(table.get(PressurizedVolume.chunkKey(x >> 4, z >> 4)), table.minY, x, y, z);
+    }
+
+    /**
+     * Rebuilds the table of a world from all of its volumes.
+     * Must not run concurrently with itself.
+     * @param worldId The world's UID
+     * @param volumes Every sealed volume of the world
+     */
+    public void rebuild(UUID worldId, Collection<PressurizedVolume> volumes) {
+        Map<UUID, WorldTable> updated = new HashMap<>(worlds);
+        if (volumes.isEmpty()) {
+            updated.remove(worldId);
+            worlds = updated;
+            return;
+        }
+
+        // Rooms of different generators may share chunks and even blocks, so OR them together
+        int minY = 0;
+        Map<Long, long[][]> union = new HashMap<>();
+        for (PressurizedVolume volume : volumes) {
+            minY = volume.getMinY();
+            for (Map.Entry<Long, long[][]> chunk : volume.getChunks().entrySet()) {
+                long[][] sections = chunk.getValue();
+                long[][] merged = union.computeIfAbsent(chunk.getKey(), key -> new long[sections.length][]);
+                for (int section = 0; section < sections.length; section++) {
+                    if (sections[section] == null) {
+                        continue;
+                    }
+                    if (merged[section] == null) {
+                        merged[section] = new long[PressurizedVolume.SECTION_LONGS];
+                    }
+                    for (int i = 0; i < PressurizedVolume.SECTION_LONGS; i++) {
+                        merged[section][i] |= sections[section][i];
+                    }
+                }
+            }
+        }
+
+        WorldTable table = new WorldTable(minY, union.size());
+        for (Map.Entry<Long, long[][]> chunk : union.entrySet()) {
+            table.put(chunk.getKey(), chunk.getValue());
+        }
+        updated.put(worldId, table);
+        worlds = updated;
+    }
+
+    /**
+     * Drops every world
+     */
+    public void clear() {
+        worlds = new HashMap<>();
+    }
+
+    /**
+     * Open-addressing table from chunk key to section bitsets. Read-only once built.
+     */
+    private static final class WorldTable {
+        private final int minY;
+        private final long[] keys;
+        private final long[][][] values;
+        private final int mask;
+
+        private WorldTable(int minY, int chunkCount) {
+            int capacity = Integer.highestOneBit(Math.max(2, chunkCount * 2 - 1)) << 1;
+            this.minY = minY;
+            this.keys = new long[capacity];
+            this.values = new long[capacity][][];
+            this.mask = capacity - 1;
+        }
+
+        private void put(long key, long[][] sections) {
+            int slot = hash(key) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = sections;
+        }
+
+        private long[][] get(long key) {
+            int slot = hash(key) & mask;
+            long[][] sections;
+            while ((sections = values[slot]) != null) {
+                if (keys[slot] == key) {
+                    return sections;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.haile.oxygen.rooms;
+
+import java.util.Map;
+
+/**
+ * Air blocks sealed around one oxygen generator.
+ * Stored as bitsets per 16x16x16 chunk section: a section is 64 longs, one bit per
+ * block, and sections without pressurized blocks are null. A room of a few thousand
+ * blocks takes a few kilobytes. Immutable once built.
+ */
+public final class PressurizedVolume {
+    // Longs per section bitset, 4096 bits
+    static final int SECTION_LONGS = 64;
+
+    private final int minY;
+    // Chunk key -> sections from the bottom of the world, null where empty
+    private final Map<Long, long[][]> chunks;
+    private final int blockCount;
+
+    PressurizedVolume(int minY, Map<Long, long[][]> chunks, int blockCount) {
+        this.minY = minY;
+        this.chunks = chunks;
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Checks if a block is pressurized
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @return True if the block is part of the volume
+     */
+    public boolean contains(int x, int y, int z) {
+        return test(chunks.get(chunkKey(x >> 4, z >> 4)), minY, x, y, z);
+    }
+
+    /**
+     * Checks if a block is part of the volume or next to it, so changing it may open or split the room
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @return True if the block or one of its six neighbours is pressurized
+     */
+    public boolean touches(int x, int y, int z) {
+        return contains(x, y, z) || contains(x + 1, y, z) || contains(x - 1, y, z)
+                || contains(x, y + 1, z) || contains(x, y - 1, z)
+                || contains(x, y, z + 1) || contains(x, y, z - 1);
+    }
+
+    /**
+     * Gets the number of pressurized blocks
+     * @return Block count
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    Map<Long, long[][]> getChunks() {
+        return chunks;
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Tests one block in the sections of its chunk
+     */
+    static boolean test(long[][] sections, int minY, int x, int y, int z) {
+        if (sections == null) {
+            return false;
+        }
+        int section = (y - minY) >> 4;
+        if (section < 0 || section >= sections.length) {
+            return false;
+        }
+        long[] bits = sections[section];
+        if (bits == null) {
+            return false;
+        }
+        int bit = bitIndex(x, y, z);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static int bitIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
@@ -0,0 +1,181 @@
+package org.haile.oxygen.rooms;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flood fill of the air around an oxygen generator on chunk snapshots.
+ * Only reads the snapshots, so it runs off the server threads. The fill is bounded
+ * twice: it never leaves a cube of the given radius around the generator, whose
+ * walls one block further out are still covered by the snapshots, and it gives up
+ * after a maximum number of blocks. Air reaching either bound, or the top or bottom of the world,
+ * means the room is not sealed.
+ */
+public final class RoomFloodFill {
+    // Coordinates relative to the generator are packed in 8 bits each
+    public static final int MAX_RADIUS = 127;
+
+    private static final int[] DX = {1, -1, 0, 0, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1, 0, 0};
+    private static final int[] DZ = {0, 0, 0, 0, 1, -1};
+
+    /**
+     * What a fill found around a generator
+     */
+    public enum Outcome {
+        SEALED,
+        LEAKING,
+        // The generator block is gone, e.g. moved by a piston or replaced by a plugin
+        NO_GENERATOR
+    }
+
+    private final Outcome outcome;
+    private final PressurizedVolume volume;
+
+    private RoomFloodFill(Outcome outcome, PressurizedVolume volume) {
+        this.outcome = outcome;
+        this.volume = volume;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the sealed volume
+     * @return The volume, null unless {@link Outcome#SEALED}
+     */
+    public PressurizedVolume getVolume() {
+        return volume;
+    }
+
+    /**
+     * Fills the air around a generator
+     * @param snapshots Snapshots of every chunk within the radius plus one block, by chunk X then Z
+     * @param minChunkX Chunk X of the first snapshot
+     * @param minChunkZ Chunk Z of the first snapshot
+     * @param chunkSpan Number of chunks per row
+     * @param minY Lowest block of the world
+     * @param maxY One above the highest block of the world
+     * @param generatorX Generator X
+     * @param generatorY Generator Y
+     * @param generatorZ Generator Z
+     * @param generatorMaterial Block the generator must still be
+     * @param radius Maximum distance from the generator on each axis, at most {@link #MAX_RADIUS}
+     * @param maxVolume Maximum number of air blocks in a sealed room
+     * @return The outcome, with the volume if sealed
+     */
+    public static RoomFloodFill fill(ChunkSnapshot[] snapshots, int minChunkX, int minChunkZ, int chunkSpan,
+                                     int minY, int maxY, int generatorX, int generatorY, int generatorZ,
+                                     Material generatorMaterial, int radius, int maxVolume) {
+        if (getType(snapshots, minChunkX, minChunkZ, chunkSpan, generatorX, generatorY, generatorZ) != generatorMaterial) {
+            return new RoomFloodFill(Outcome.NO_GENERATOR, null);
+        }
+
+        int side = radius * 2 + 1;
+        BitSet visited = new BitSet(side * side * side);
+        // Every visited block is queued once, so the queue also lists the volume at the end
+        int[] queue = new int[maxVolume];
+        int tail = 0;
+
+        visited.set(index(radius, radius, radius, side));
+        // The generator itself is not air; start from the air around it
+        int head = -1;
+        int dx = 0, dy = 0, dz = 0;
+        while (true) {
+            for (int direction = 0; direction < 6; direction++) {
+                int nx = dx + DX[direction];
+                int ny = dy + DY[direction];
+                int nz = dz + DZ[direction];
+                int y = generatorY + ny;
+                if (y < minY || y >= maxY) {
+                    return new RoomFloodFill(Outcome.LEAKING, null);
+                }
+
+                // Walls just outside the radius are still read, only air there leaks
+                boolean inside = Math.abs(nx) <= radius && Math.abs(ny) <= radius && Math.abs(nz) <= radius;
+                if (inside) {
+                    int visitIndex = index(nx + radius, ny + radius, nz + radius, side);
+                    if (visited.get(visitIndex)) {
+                        continue;
+                    }
+                    visited.set(visitIndex);
+                }
+
+                Material type = getType(snapshots, minChunkX, minChunkZ, chunkSpan,
+                        generatorX + nx, y, generatorZ + nz);
+                if (type == null) {
+                    return new RoomFloodFill(Outcome.LEAKING, null);
+                }
+                if (!type.isAir()) {
+                    continue;
+                }
+                if (!inside || tail == maxVolume) {
+                    // Too big to be a room, most likely open to the outside
+                    return new RoomFloodFill(Outcome.LEAKING, null);
+                }
+                queue[tail++] = pack(nx + radius, ny + radius, nz + radius);
+            }
+
+            if (++head >= tail) {
+                break;
+            }
+            int packed = queue[head];
+            dx = (packed >>> 16) - radius;
+            dy = ((packed >>> 8) & 0xFF) - radius;
+            dz = (packed & 0xFF) - radius;
+        }
+
+        if (tail == 0) {
+            // Generator walled in on all sides
+            return new RoomFloodFill(Outcome.LEAKING, null);
+        }
+        return new RoomFloodFill(Outcome.SEALED, toVolume(queue, tail, radius, minY, maxY,
+                generatorX, generatorY, generatorZ));
+    }
+
+    private static PressurizedVolume toVolume(int[] queue, int count, int radius, int minY, int maxY,
+                                              int generatorX, int generatorY, int generatorZ) {
+        int sections = (maxY - minY) >> 4;
+        Map<Long, long[][]> chunks = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int packed = queue[i];
+            int x = generatorX + (packed >>> 16) - radius;
+            int y = generatorY + ((packed >>> 8) & 0xFF) - radius;
+            int z = generatorZ + (packed & 0xFF) - radius;
+
+            long[][] chunk = chunks.computeIfAbsent(PressurizedVolume.chunkKey(x >> 4, z >> 4),
+                    key -> new long[sections][]);
+            int section = (y - minY) >> 4;
+            if (chunk[section] == null) {
+                chunk[section] = new long[PressurizedVolume.SECTION_LONGS];
+            }
+            int bit = PressurizedVolume.bitIndex(x, y, z);
+            chunk[section][bit >>> 6] |= 1L << bit;
+        }
+        return new PressurizedVolume(minY, chunks, count);
+    }
+
+    private static Material getType(ChunkSnapshot[] snapshots, int minChunkX, int minChunkZ, int chunkSpan,
+                                    int x, int y, int z) {
+        int column = (x >> 4) - minChunkX;
+        int row = (z >> 4) - minChunkZ;
+        if (column < 0 || column >= chunkSpan || row < 0 || row >= chunkSpan) {
+            return null;
+        }
+        ChunkSnapshot snapshot = snapshots[column * chunkSpan + row];
+        return snapshot.getBlockType(x & 15, y, z & 15);
+    }
+
+    private static int index(int x, int y, int z, int side) {
+        return (x * side + y) * side + z;
+    }
+
+    private static int pack(int x, int y, int z) {
+        return (x << 16) | (y << 8) | z;
+    }
+}
@@ -0,0 +1,66 @@
+package org.haile.oxygen.scheduler;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Paper/Spigot scheduler: everything runs on the main server thread
+ */
+public class BukkitOxygenScheduler implements OxygenScheduler {
+    private final Plugin plugin;
+
+    public BukkitOxygenScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+
+    @Override
+    public OxygenTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        BukkitTask bukkitTask = plugin.getServer().getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        runGlobal(() -> {
+            if (player.isOnline()) {
+                task.run();
+            }
+        });
+    }
+
+    @Override
+    public OxygenTask runForPlayerLater(Player player, Runnable task, Runnable retired, long delayTicks) {
+        BukkitTask bukkitTask = plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            if (player.isOnline()) {
+                task.run();
+            } else if (retired != null) {
+                retired.run();
+            }
+        }, Math.max(1L, delayTicks));
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public void runAtChunk(World world, int chunkX, int chunkZ, Runnable task) {
+        runGlobal(task);
+    }
+
+    @Override
+    public void cancelAll() {
+        plugin.getServer().getScheduler().cancelTasks(plugin);
+    }
+}
@@ -0,0 +1,73 @@
+package org.haile.oxygen.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Folia scheduler: global work on the global region, player work on the
+ * player's entity scheduler so it runs on the region thread that owns them,
+ * and block work on the region scheduler of the chunk
+ */
+public class FoliaOxygenScheduler implements OxygenScheduler {
+    private final Plugin plugin;
+
+    public FoliaOxygenScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public OxygenTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        ScheduledTask scheduledTask = plugin.getServer().getGlobalRegionScheduler()
+                .runAtFixedRate(plugin, ignored -> task.run(), Math.max(1L, delayTicks), periodTicks);
+        return scheduledTask::cancel;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+        }
+    }
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        if (plugin.isEnabled()) {
+            player.getScheduler().run(plugin, ignored -> task.run(), null);
+        }
+    }
+
+    @Override
+    public OxygenTask runForPlayerLater(Player player, Runnable task, Runnable retired, long delayTicks) {
+        ScheduledTask scheduledTask = player.getScheduler()
+                .runDelayed(plugin, ignored -> task.run(), retired, Math.max(1L, delayTicks));
+        if (scheduledTask == null) {
+            // The player was already removed from the world
+            if (retired != null) {
+                retired.run();
+            }
+            return () -> { };
+        }
+        return scheduledTask::cancel;
+    }
+
+    @Override
+    public void runAtChunk(World world, int chunkX, int chunkZ, Runnable task) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getRegionScheduler().execute(plugin, world, chunkX, chunkZ, task);
+        }
+    }
+
+    @Override
+    public void cancelAll() {
+        // Entity tasks are retired with the plugin; global and async tasks must be cancelled explicitly
+        plugin.getServer().getGlobalRegionScheduler().cancelTasks(plugin);
+        plugin.getServer().getAsyncScheduler().cancelTasks(plugin);
+    }
+}
@@ -0,0 +1,65 @@
+package org.haile.oxygen.scheduler;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+/**
+ * Schedules plugin work on the thread that owns it.
+ * On Paper everything runs on the main thread; on Folia global work runs on the
+ * global region, player work on the region thread that owns the player and
+ * block work on the region thread that owns the chunk.
+ */
+public interface OxygenScheduler {
+
+    /**
+     * Checks whether players are ticked by several region threads (Folia)
+     * @return True on Folia
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Runs a repeating task that does not touch any player or world
+     * @param task The task
+     * @param delayTicks Ticks before the first run (at least 1)
+     * @param periodTicks Ticks between runs
+     * @return Task handle
+     */
+    OxygenTask runTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task on the global thread as soon as possible, e.g. to reply to a command
+     * @param task The task
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Runs a task on the thread that owns a player as soon as possible, skipped if the player is removed first
+     * @param player The player
+     * @param task The task
+     */
+    void runForPlayer(Player player, Runnable task);
+
+    /**
+     * Runs a task on the thread that owns a player after a delay
+     * @param player The player
+     * @param task The task
+     * @param retired Called instead if the player is removed before the task runs, may be null
+     * @param delayTicks Ticks to wait (at least 1)
+     * @return Task handle
+     */
+    OxygenTask runForPlayerLater(Player player, Runnable task, Runnable retired, long delayTicks);
+
+    /**
+     * Runs a task on the thread that owns a chunk as soon as possible, e.g. to take a chunk snapshot
+     * @param world The world
+     * @param chunkX Chunk X
+     * @param chunkZ Chunk Z
+     * @param task The task
+     */
+    void runAtChunk(World world, int chunkX, int chunkZ, Runnable task);
+
+    /**
+     * Cancels every task started by the plugin
+     */
+    void cancelAll();
+}
@@ -0,0 +1,31 @@
+package org.haile.oxygen.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Picks the scheduler for the running server
+ */
+public class OxygenSchedulers {
+
+    /**
+     * Creates the scheduler matching the server software
+     * @param plugin Plugin instance
+     * @return Folia scheduler on Folia, Bukkit scheduler otherwise
+     */
+    public static OxygenScheduler create(Plugin plugin) {
+        return isFolia() ? new FoliaOxygenScheduler(plugin) : new BukkitOxygenScheduler(plugin);
+    }
+
+    /**
+     * Checks for Folia's region threading classes
+     * @return True when running on Folia
+     */
+    public static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
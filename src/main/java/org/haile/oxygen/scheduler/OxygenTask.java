@@ -0,0 +1,12 @@
+package org.haile.oxygen.scheduler;
+
+/**
+ * Handle for a task started through {@link OxygenScheduler}
+ */
+public interface OxygenTask {
+
+    /**
+     * Cancels the task if it has not run yet, or stops a repeating task
+     */
+    void cancel();
+}
@@ -0,0 +1,205 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Base class that runs blocking backend operations on the storage executor.
+ * Saves submitted before the previous write starts are merged into a single write,
+ * and loads see records that are still waiting to be written.
+ */
+public abstract class AbstractStorageBackend implements StorageBackend {
+    protected final Logger logger;
+    private final Executor executor;
+
+    private final Object writeLock = new Object();
+    private Map<UUID, OxygenRecord> pendingWrites = new HashMap<>();
+    private CompletableFuture<Void> pendingWriteFuture;
+    // True while a drain is queued or running on the executor
+    private boolean drainScheduled;
+
+    protected AbstractStorageBackend(Logger logger, Executor executor) {
+        this.logger = logger;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> init() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                doInit();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, OxygenRecord>> loadMany(Collection<UUID> playerIds) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<UUID, OxygenRecord> result;
+            try {
+                result = doLoadMany(playerIds);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+
+            // Records not written yet are newer than what storage returned
+            synchronized (writeLock) {
+                for (UUID playerId : playerIds) {
+                    OxygenRecord pending = pendingWrites.get(playerId);
+                    if (pending != null) {
+                        result.put(playerId, pending);
+                    }
+                }
+            }
+            return result;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<StoragePage> scan(String cursor, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            StoragePage page;
+            try {
+                page = doScan(cursor, limit);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+
+            // Same as loads, prefer records that are still waiting to be written
+            synchronized (writeLock) {
+                if (!pendingWrites.isEmpty()) {
+                    page.getRecords().replaceAll(record ->
+                            pendingWrites.getOrDefault(record.getPlayerId(), record));
+                }
+            }
+            return page;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveMany(Collection<OxygenRecord> records) {
+        synchronized (writeLock) {
+            for (OxygenRecord record : records) {
+                pendingWrites.put(record.getPlayerId(), record);
+            }
+
+            // Keep a local reference: with a direct executor the drain completes and clears it right away
+            CompletableFuture<Void> future = pendingWriteFuture;
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pendingWriteFuture = future;
+            }
+            scheduleDrain();
+            return future;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        CompletableFuture<Void> pending;
+        synchronized (writeLock) {
+            // A batch left over from a full queue must still be written before closing
+            scheduleDrain();
+            pending = pendingWriteFuture != null ? pendingWriteFuture : CompletableFuture.completedFuture(null);
+        }
+
+        return pending.handle((ignored, error) -> null)
+                .thenRunAsync(() -> {
+                    try {
+                        doClose();
+                    } catch (Exception e) {
+                        logger.log(Level.WARNING, "Error closing " + getName() + " storage", e);
+                    }
+                }, executor);
+    }
+
+    /**
+     * Queues a drain of the pending batch unless one is already queued.
+     * Must hold writeLock.
+     */
+    private void scheduleDrain() {
+        if (pendingWriteFuture == null || drainScheduled) {
+            return;
+        }
+
+        drainScheduled = true;
+        try {
+            executor.execute(this::drainPendingWrites);
+        } catch (RejectedExecutionException e) {
+            // Storage queue is full: keep the batch, the next save or close queues the drain again
+            drainScheduled = false;
+        }
+    }
+
+    private void drainPendingWrites() {
+        Map<UUID, OxygenRecord> batch;
+        CompletableFuture<Void> future;
+        synchronized (writeLock) {
+            drainScheduled = false;
+            batch = pendingWrites;
+            future = pendingWriteFuture;
+            pendingWrites = new HashMap<>();
+            pendingWriteFuture = null;
+        }
+
+        if (future == null) {
+            return;
+        }
+
+        try {
+            doSaveMany(batch.values());
+            future.complete(null);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Could not save player data to " + getName() + " storage", e);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Opens the backend. Runs on the storage thread.
+     * @throws Exception If the backend cannot be opened
+     */
+    protected abstract void doInit() throws Exception;
+
+    /**
+     * Loads records. Runs on the storage thread.
+     * @param playerIds The players to load
+     * @return Mutable map of found records
+     * @throws Exception If the read fails
+     */
+    protected abstract Map<UUID, OxygenRecord> doLoadMany(Collection<UUID> playerIds) throws Exception;
+
+    /**
+     * Saves records. Runs on the storage thread.
+     * @param records The records to save
+     * @throws Exception If the write fails
+     */
+    protected abstract void doSaveMany(Collection<OxygenRecord> records) throws Exception;
+
+    /**
+     * Reads a page of records. Runs on the storage thread.
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param limit Maximum number of records
+     * @return Page with a mutable record list
+     * @throws Exception If the read fails
+     */
+    protected abstract StoragePage doScan(String cursor, int limit) throws Exception;
+
+    /**
+     * Releases resources. Runs on the storage thread.
+     * @throws Exception If closing fails
+     */
+    protected abstract void doClose() throws Exception;
+}
@@ -0,0 +1,41 @@
+package org.haile.oxygen.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Embedded H2 backend
+ */
+public class H2StorageBackend extends SqlStorageBackend {
+    private final File databaseFile;
+
+    public H2StorageBackend(Logger logger, Executor executor, File databaseFile, String tablePrefix) {
+        super(logger, executor, tablePrefix + "players");
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+    @Override
+    protected DataSource createDataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("Oxygen-H2");
+        // H2 appends .mv.db itself and requires an absolute path
+        config.setJdbcUrl("jdbc:h2:file:" + databaseFile.getAbsolutePath());
+        config.setMaximumPoolSize(2);
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    protected String getUpsertSql() {
+        return "MERGE INTO " + tableName + " (uuid, name, oxygen, updated_at) KEY (uuid) VALUES (?, ?, ?, ?)";
+    }
+}
@@ -0,0 +1,309 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+import org.haile.oxygen.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Log-structured backend. Every save appends fixed-size records to a journal
+ * with one fsync per batch (group commit); a background compactor folds the
+ * journal into a snapshot. Startup replays snapshot + journal tail.
+ */
+public class JournalStorageBackend extends AbstractStorageBackend {
+    // uuid msb (8) + uuid lsb (8) + level (4) + updated at (8) + crc (4)
+    static final int RECORD_SIZE = 32;
+    private static final int SNAPSHOT_MAGIC = 0x4F58534E; // "OXSN"
+
+    private final Path journalFile;
+    private final Path rotatedJournalFile;
+    private final Path snapshotFile;
+    private final long compactAfterRecords;
+
+    // Latest level per player; owned by the storage thread. Sorted so scans can resume by UUID
+    private final TreeMap<UUID, Entry> index = new TreeMap<>();
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Oxygen-Compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+
+    private FileChannel journal;
+    private long journalRecords;
+
+    public JournalStorageBackend(Logger logger, Executor executor, File directory, long compactAfterRecords) {
+        super(logger, executor);
+        this.journalFile = directory.toPath().resolve("oxygen.journal");
+        this.rotatedJournalFile = directory.toPath().resolve("oxygen.journal.old");
+        this.snapshotFile = directory.toPath().resolve("oxygen.snapshot");
+        this.compactAfterRecords = compactAfterRecords;
+    }
+
+    @Override
+    public String getName() {
+        return "Journal";
+    }
+
+    @Override
+    protected void doInit() throws IOException {
+        Files.createDirectories(journalFile.getParent());
+
+        // Snapshot first, then a journal left over from an interrupted compaction, then the live tail
+        int snapshotCount = readSnapshot();
+        if (Files.exists(rotatedJournalFile)) {
+            replay(rotatedJournalFile);
+        }
+
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journalRecords = replay(journal);
+        journal.position(journalRecords * RECORD_SIZE);
+
+        logger.info("Recovered " + index.size() + " players from journal (snapshot: " + snapshotCount
+                + ", tail records: " + journalRecords + ")");
+
+        if (Files.exists(rotatedJournalFile)) {
+            startCompaction();
+        }
+    }
+
+    @Override
+    protected Map<UUID, OxygenRecord> doLoadMany(Collection<UUID> playerIds) {
+        Map<UUID, OxygenRecord> result = new HashMap<>();
+        for (UUID playerId : playerIds) {
+            Entry entry = index.get(playerId);
+            if (entry != null) {
+                result.put(playerId, new OxygenRecord(playerId, null, entry.level, entry.updatedAt));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void doSaveMany(Collection<OxygenRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        for (OxygenRecord record : records) {
+            // Keep the time the level was simulated at, so catch-up on join starts from there
+            long updatedAt = record.getUpdatedAt() > 0 ? record.getUpdatedAt() : now;
+            writeRecord(buffer, crc, record.getPlayerId(), record.getOxygenLevel(), updatedAt);
+            index.put(record.getPlayerId(), new Entry(record.getOxygenLevel(), updatedAt));
+        }
+        buffer.flip();
+
+        // Group commit: the whole batch is a single append and a single fsync
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+        journalRecords += records.size();
+
+        if (journalRecords >= compactAfterRecords && compaction.isDone()) {
+            // A rotated journal left by a failed compaction is covered by the next snapshot
+            if (!Files.exists(rotatedJournalFile)) {
+                rotateJournal();
+            }
+            startCompaction();
+        }
+    }
+
+    @Override
+    protected StoragePage doScan(String cursor, int limit) {
+        List<OxygenRecord> records = new ArrayList<>();
+        Map<UUID, Entry> remaining = cursor != null ? index.tailMap(UUID.fromString(cursor), false) : index;
+
+        UUID last = null;
+        for (Map.Entry<UUID, Entry> entry : remaining.entrySet()) {
+            if (records.size() >= limit) {
+                return new StoragePage(records, last.toString());
+            }
+            records.add(new OxygenRecord(entry.getKey(), null, entry.getValue().level, entry.getValue().updatedAt));
+            last = entry.getKey();
+        }
+        return new StoragePage(records, null);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        compaction.exceptionally(error -> null).join();
+        compactor.shutdown();
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Moves the live journal aside and starts a fresh one.
+     * The rotated journal is deleted once the snapshot that covers it is durable.
+     */
+    private void rotateJournal() throws IOException {
+        journal.close();
+        Files.move(journalFile, rotatedJournalFile);
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journalRecords = 0;
+    }
+
+    private void startCompaction() {
+        // Copy on the storage thread so the compactor never touches the live index
+        Map<UUID, Entry> copy = new HashMap<>(index);
+        compaction = CompletableFuture.runAsync(() -> {
+            try {
+                writeSnapshot(copy);
+                Files.deleteIfExists(rotatedJournalFile);
+                logger.info("Compacted journal into snapshot of " + copy.size() + " players");
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not compact oxygen journal", e);
+            }
+        }, compactor);
+    }
+
+    private void writeSnapshot(Map<UUID, Entry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + entries.size() * RECORD_SIZE);
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putInt(entries.size());
+
+        CRC32 crc = new CRC32();
+        for (Map.Entry<UUID, Entry> entry : entries.entrySet()) {
+            writeRecord(buffer, crc, entry.getKey(), entry.getValue().level, entry.getValue().updatedAt);
+        }
+        FileUtils.writeAtomically(snapshotFile, buffer.array());
+    }
+
+    private int readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        if (buffer.remaining() < 8 || buffer.getInt() != SNAPSHOT_MAGIC) {
+            logger.warning("Ignoring invalid oxygen snapshot " + snapshotFile.getFileName());
+            return 0;
+        }
+
+        int count = buffer.getInt();
+        CRC32 crc = new CRC32();
+        int read = 0;
+        while (read < count && buffer.remaining() >= RECORD_SIZE && readRecord(buffer, crc)) {
+            read++;
+        }
+        return read;
+    }
+
+    private long replay(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return replay(channel, false);
+        }
+    }
+
+    private long replay(FileChannel channel) throws IOException {
+        return replay(channel, true);
+    }
+
+    /**
+     * Applies every complete, valid record of a journal to the index.
+     * On the live journal a torn or corrupt tail is cut off so new appends
+     * start on a record boundary.
+     * @return Number of valid records
+     */
+    private long replay(FileChannel channel, boolean truncateTail) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        CRC32 crc = new CRC32();
+        long records = 0;
+        boolean corrupt = false;
+
+        channel.position(0);
+        while (!corrupt && records * RECORD_SIZE + RECORD_SIZE <= size) {
+            buffer.clear();
+            if (channel.read(buffer) < RECORD_SIZE) {
+                break;
+            }
+            buffer.flip();
+
+            while (buffer.remaining() >= RECORD_SIZE) {
+                if (!readRecord(buffer, crc)) {
+                    logger.warning("Oxygen journal is corrupt after record " + records + ", ignoring the rest");
+                    corrupt = true;
+                    break;
+                }
+                records++;
+            }
+            channel.position(records * RECORD_SIZE);
+        }
+
+        if (truncateTail && size != records * RECORD_SIZE) {
+            channel.truncate(records * RECORD_SIZE);
+        }
+        return records;
+    }
+
+    private static void writeRecord(ByteBuffer buffer, CRC32 crc, UUID playerId, int level, long updatedAt) {
+        int start = buffer.position();
+        buffer.putLong(playerId.getMostSignificantBits());
+        buffer.putLong(playerId.getLeastSignificantBits());
+        buffer.putInt(level);
+        buffer.putLong(updatedAt);
+
+        crc.reset();
+        crc.update(buffer.array(), start, RECORD_SIZE - 4);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private boolean readRecord(ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        crc.reset();
+        crc.update(buffer.array(), start, RECORD_SIZE - 4);
+
+        long msb = buffer.getLong();
+        long lsb = buffer.getLong();
+        int level = buffer.getInt();
+        long updatedAt = buffer.getLong();
+        int checksum = buffer.getInt();
+
+        if (checksum != (int) crc.getValue()) {
+            return false;
+        }
+
+        index.put(new UUID(msb, lsb), new Entry(level, updatedAt));
+        return true;
+    }
+
+    private static final class Entry {
+        final int level;
+        final long updatedAt;
+
+        Entry(int level, long updatedAt) {
+            this.level = level;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
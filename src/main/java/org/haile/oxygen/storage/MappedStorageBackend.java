@@ -0,0 +1,274 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Memory-mapped table of fixed-width player slots.
+ * The file itself is an open-addressing hash table keyed by UUID, so a load or
+ * save is a probe plus a positioned read or write, and opening the table does
+ * not depend on how many players have ever joined.
+ */
+public class MappedStorageBackend extends AbstractStorageBackend {
+    private static final int MAGIC = 0x4F58544C; // "OXTL"
+    private static final int VERSION = 1;
+
+    // Header: magic (4) + version (4) + capacity (4) + size (4), padded to one slot
+    private static final int HEADER_SIZE = 32;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SIZE_FIELD = 12;
+
+    // Slot: uuid msb (8) + uuid lsb (8) + level (4) + flags (4) + updated at (8)
+    private static final int SLOT_SIZE = 32;
+    private static final int SLOT_LEVEL = 16;
+    private static final int SLOT_FLAGS = 20;
+    private static final int SLOT_UPDATED_AT = 24;
+    private static final int FLAG_USED = 1;
+
+    // Keeps the mapping below the 2GB limit of a single MappedByteBuffer
+    private static final int MAX_CAPACITY = 1 << 25;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private final Path tableFile;
+    private final int initialCapacity;
+
+    private FileChannel channel;
+    private MappedByteBuffer table;
+    private int capacity;
+    private int size;
+
+    public MappedStorageBackend(Logger logger, Executor executor, File tableFile, int initialCapacity) {
+        super(logger, executor);
+        this.tableFile = tableFile.toPath();
+        this.initialCapacity = Integer.highestOneBit(Math.max(1024, Math.min(MAX_CAPACITY, initialCapacity)));
+    }
+
+    @Override
+    public String getName() {
+        return "Mapped";
+    }
+
+    @Override
+    protected void doInit() throws IOException {
+        Files.createDirectories(tableFile.getParent());
+
+        if (!Files.exists(tableFile) || Files.size(tableFile) < HEADER_SIZE) {
+            createTable(tableFile, initialCapacity);
+        }
+        openTable();
+
+        logger.info("Opened mapped player table with " + size + " players (capacity " + capacity + ")");
+    }
+
+    @Override
+    protected Map<UUID, OxygenRecord> doLoadMany(Collection<UUID> playerIds) {
+        Map<UUID, OxygenRecord> result = new HashMap<>();
+        for (UUID playerId : playerIds) {
+            int slot = findSlot(table, capacity, playerId, null);
+            int offset = slotOffset(slot);
+            if (table.getInt(offset + SLOT_FLAGS) == FLAG_USED) {
+                result.put(playerId, new OxygenRecord(playerId, null, table.getInt(offset + SLOT_LEVEL),
+                        table.getLong(offset + SLOT_UPDATED_AT)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void doSaveMany(Collection<OxygenRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // Grow before writing so no probe chain gets too long
+        int required = size + records.size();
+        if (required > capacity * MAX_LOAD_FACTOR) {
+            grow(required);
+        }
+
+        long now = System.currentTimeMillis();
+        // Slots of new players written in this batch but not marked used yet
+        Set<Integer> claimed = new HashSet<>();
+        for (OxygenRecord record : records) {
+            int slot = findSlot(table, capacity, record.getPlayerId(), claimed);
+            int offset = slotOffset(slot);
+            table.putInt(offset + SLOT_LEVEL, record.getOxygenLevel());
+            table.putLong(offset + SLOT_UPDATED_AT, record.getUpdatedAt() > 0 ? record.getUpdatedAt() : now);
+
+            if (table.getInt(offset + SLOT_FLAGS) != FLAG_USED) {
+                table.putLong(offset, record.getPlayerId().getMostSignificantBits());
+                table.putLong(offset + 8, record.getPlayerId().getLeastSignificantBits());
+                claimed.add(slot);
+            }
+        }
+
+        if (!claimed.isEmpty()) {
+            // force() does not order pages, so new keys must be on disk before any slot
+            // is marked used; otherwise a crash could leave a used slot with a torn key
+            table.force();
+            for (int slot : claimed) {
+                table.putInt(slotOffset(slot) + SLOT_FLAGS, FLAG_USED);
+            }
+            size += claimed.size();
+            table.putInt(HEADER_SIZE_FIELD, size);
+        }
+
+        // One more flush of the dirty pages per batch
+        table.force();
+    }
+
+    @Override
+    protected StoragePage doScan(String cursor, int limit) {
+        // Cursor is "<capacity>:<slot>"; if the table grew since, slots moved and the scan restarts
+        int slot = 0;
+        if (cursor != null) {
+            int separator = cursor.indexOf(':');
+            if (Integer.parseInt(cursor.substring(0, separator)) == capacity) {
+                slot = Integer.parseInt(cursor.substring(separator + 1));
+            }
+        }
+
+        List<OxygenRecord> records = new ArrayList<>();
+        for (; slot < capacity && records.size() < limit; slot++) {
+            int offset = slotOffset(slot);
+            if (table.getInt(offset + SLOT_FLAGS) == FLAG_USED) {
+                UUID playerId = new UUID(table.getLong(offset), table.getLong(offset + 8));
+                records.add(new OxygenRecord(playerId, null, table.getInt(offset + SLOT_LEVEL),
+                        table.getLong(offset + SLOT_UPDATED_AT)));
+            }
+        }
+        return new StoragePage(records, slot < capacity ? capacity + ":" + slot : null);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        if (table != null) {
+            table.force();
+            table = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void openTable() throws IOException {
+        channel = FileChannel.open(tableFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Invalid mapped player table " + tableFile.getFileName());
+        }
+
+        capacity = header.getInt(HEADER_CAPACITY);
+        size = header.getInt(HEADER_SIZE_FIELD);
+        table = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+    }
+
+    /**
+     * Rehashes every used slot into a table at least twice as large and swaps it in
+     */
+    private void grow(int required) throws IOException {
+        int newCapacity = capacity;
+        while (required > newCapacity * MAX_LOAD_FACTOR) {
+            if (newCapacity >= MAX_CAPACITY) {
+                throw new IOException("Mapped player table is full (" + size + " players)");
+            }
+            newCapacity <<= 1;
+        }
+
+        Path temp = tableFile.resolveSibling(tableFile.getFileName() + ".grow");
+        createTable(temp, newCapacity);
+
+        try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = tempChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = slotOffset(slot);
+                if (table.getInt(offset + SLOT_FLAGS) != FLAG_USED) {
+                    continue;
+                }
+
+                UUID playerId = new UUID(table.getLong(offset), table.getLong(offset + 8));
+                int targetOffset = slotOffset(findSlot(target, newCapacity, playerId, null));
+                for (int i = 0; i < SLOT_SIZE; i += 8) {
+                    target.putLong(targetOffset + i, table.getLong(offset + i));
+                }
+            }
+            target.putInt(HEADER_SIZE_FIELD, size);
+            target.force();
+        }
+
+        doClose();
+        Files.move(temp, tableFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openTable();
+
+        logger.info("Grew mapped player table to capacity " + capacity);
+    }
+
+    private static void createTable(Path file, int capacity) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Mapping past the end extends the file with zeroes, i.e. empty slots
+            MappedByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(HEADER_CAPACITY, capacity);
+            header.putInt(HEADER_SIZE_FIELD, 0);
+            header.force();
+        }
+    }
+
+    /**
+     * Finds the slot holding a player, or the empty slot where it would be inserted
+     * @param claimed Empty slots already taken by other new players, or null
+     */
+    private static int findSlot(MappedByteBuffer buffer, int capacity, UUID playerId, Set<Integer> claimed) {
+        long msb = playerId.getMostSignificantBits();
+        long lsb = playerId.getLeastSignificantBits();
+        int mask = capacity - 1;
+        int slot = hash(msb, lsb) & mask;
+
+        while (true) {
+            int offset = slotOffset(slot);
+            boolean used = buffer.getInt(offset + SLOT_FLAGS) == FLAG_USED
+                    || (claimed != null && claimed.contains(slot));
+            if (!used || (buffer.getLong(offset) == msb && buffer.getLong(offset + 8) == lsb)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,67 @@
+package org.haile.oxygen.storage;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.haile.oxygen.models.ConfigSettings;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Offline entry point for migrating player data while the server is stopped.
+ * <pre>
+ * java -cp Oxygen.jar:paper-api.jar:&lt;storage drivers&gt; org.haile.oxygen.storage.MigrationTool \
+ *     plugins/Oxygen &lt;from&gt; &lt;to&gt; [restart]
+ * </pre>
+ * Uses the same config.yml, checkpoint and batch size as /oxygen migrate.
+ */
+public class MigrationTool {
+
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 4 || (args.length == 4 && !args[3].equalsIgnoreCase("restart"))) {
+            System.err.println("Usage: MigrationTool <plugin folder> <from> <to> [restart]");
+            System.err.println("Storage types: " + String.join(", ", StorageBackends.TYPES));
+            System.exit(2);
+            return;
+        }
+
+        File dataFolder = new File(args[0]);
+        String from = StorageBackends.normalize(args[1]);
+        String to = StorageBackends.normalize(args[2]);
+        if (from == null || to == null || from.equals(to)) {
+            System.err.println("Invalid migration from '" + args[1] + "' to '" + args[2] + "'");
+            System.exit(2);
+            return;
+        }
+
+        Logger logger = Logger.getLogger("Oxygen");
+        ConfigSettings configSettings = new ConfigSettings();
+        File configFile = new File(dataFolder, "config.yml");
+        if (configFile.exists()) {
+            configSettings.loadFromConfig(YamlConfiguration.loadConfiguration(configFile), logger);
+        }
+
+        // Nothing else uses the backends, so they run directly on this thread
+        StorageBackend source = StorageBackends.create(from, dataFolder, logger, configSettings, Runnable::run);
+        StorageBackend target = StorageBackends.create(to, dataFolder, logger, configSettings, Runnable::run);
+        File checkpoint = new File(dataFolder, "migration-" + from + "-" + to + ".properties");
+
+        int exitCode = 0;
+        try {
+            source.init().join();
+            target.init().join();
+
+            StorageMigration migration = new StorageMigration(logger, source, target, checkpoint,
+                    configSettings.getMigrationBatchSize());
+            migration.run(args.length == 4, (migrated, rate) ->
+                    System.out.printf("Migrated %d players (%.0f/s)%n", migrated, rate));
+        } catch (Exception e) {
+            System.err.println("Migration failed, run the same command again to resume: " + e.getMessage());
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            source.close().join();
+            target.close().join();
+        }
+        System.exit(exitCode);
+    }
+}
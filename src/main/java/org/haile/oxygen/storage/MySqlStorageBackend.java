@@ -0,0 +1,63 @@
+package org.haile.oxygen.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.haile.oxygen.models.ConfigSettings;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * MySQL backend using a HikariCP connection pool and batched upserts.
+ * A data source can be passed in directly, e.g. H2 with MODE=MySQL for tests.
+ */
+public class MySqlStorageBackend extends SqlStorageBackend {
+    private final ConfigSettings configSettings;
+    private final DataSource providedDataSource;
+
+    public MySqlStorageBackend(Logger logger, Executor executor, ConfigSettings configSettings) {
+        super(logger, executor, configSettings.getMysqlTablePrefix() + "players");
+        this.configSettings = configSettings;
+        this.providedDataSource = null;
+    }
+
+    public MySqlStorageBackend(Logger logger, Executor executor, DataSource dataSource, String tablePrefix) {
+        super(logger, executor, tablePrefix + "players");
+        this.configSettings = null;
+        this.providedDataSource = dataSource;
+    }
+
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+    @Override
+    protected DataSource createDataSource() {
+        if (providedDataSource != null) {
+            return providedDataSource;
+        }
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("Oxygen-MySQL");
+        config.setJdbcUrl("jdbc:mysql://" + configSettings.getMysqlHost() + ":" + configSettings.getMysqlPort()
+                + "/" + configSettings.getMysqlDatabase());
+        config.setUsername(configSettings.getMysqlUsername());
+        config.setPassword(configSettings.getMysqlPassword());
+        config.setMaximumPoolSize(configSettings.getMysqlPoolSize());
+        config.setMinimumIdle(1);
+
+        // Let the driver collapse batched upserts into multi-row statements
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    protected String getUpsertSql() {
+        return "INSERT INTO " + tableName + " (uuid, name, oxygen, updated_at) VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE name = VALUES(name), oxygen = VALUES(oxygen), updated_at = VALUES(updated_at)";
+    }
+}
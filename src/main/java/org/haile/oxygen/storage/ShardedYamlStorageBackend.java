@@ -0,0 +1,241 @@
+package org.haile.oxygen.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.haile.oxygen.models.OxygenRecord;
+import org.haile.oxygen.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Stores players in small YAML shard files keyed by UUID prefix.
+ * A flush only rewrites the shards that contain dirty players, and different
+ * shards are written in parallel. Shards are read on demand, so nothing stays
+ * in memory between operations.
+ */
+public class ShardedYamlStorageBackend extends AbstractStorageBackend {
+    private static final String MIGRATED_MARKER = ".migrated";
+
+    private final File directory;
+    private final File legacyFile;
+    private final int prefixLength;
+    private final ExecutorService shardWriters;
+
+    public ShardedYamlStorageBackend(Logger logger, Executor executor, File directory, File legacyFile,
+                                     int prefixLength, int writeThreads) {
+        super(logger, executor);
+        this.directory = directory;
+        this.legacyFile = legacyFile;
+        this.prefixLength = Math.max(1, Math.min(3, prefixLength));
+        this.shardWriters = Executors.newFixedThreadPool(Math.max(1, writeThreads), runnable -> {
+            Thread thread = new Thread(runnable, "Oxygen-Shard-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "Sharded YAML";
+    }
+
+    @Override
+    protected void doInit() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getName() + " directory");
+        }
+
+        if (legacyFile.exists() && !new File(directory, MIGRATED_MARKER).exists()) {
+            migrateLegacyFile();
+        }
+
+        File[] shards = directory.listFiles((dir, name) -> name.endsWith(".yml"));
+        logger.info("Using sharded player data in " + directory.getName() + " ("
+                + (shards != null ? shards.length : 0) + " shards)");
+    }
+
+    @Override
+    protected Map<UUID, OxygenRecord> doLoadMany(Collection<UUID> playerIds) {
+        Map<UUID, OxygenRecord> result = new HashMap<>();
+        for (Map.Entry<String, List<UUID>> shard : groupByShard(playerIds, id -> id).entrySet()) {
+            File shardFile = shardFile(shard.getKey());
+            if (!shardFile.exists()) {
+                continue;
+            }
+
+            YamlConfiguration shardConfig = YamlConfiguration.loadConfiguration(shardFile);
+            for (UUID playerId : shard.getValue()) {
+                String path = "players." + playerId.toString();
+                if (shardConfig.contains(path + ".oxygen")) {
+                    result.put(playerId, new OxygenRecord(playerId,
+                            shardConfig.getString(path + ".name"),
+                            shardConfig.getInt(path + ".oxygen", 100),
+                            shardConfig.getLong(path + ".updated", 0L)));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void doSaveMany(Collection<OxygenRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // One task per touched shard; shards are independent files, so they can be written concurrently
+        Map<String, List<OxygenRecord>> shards = groupByShard(records, OxygenRecord::getPlayerId);
+        List<CompletableFuture<Void>> writes = new ArrayList<>(shards.size());
+        for (Map.Entry<String, List<OxygenRecord>> shard : shards.entrySet()) {
+            writes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    writeShard(shard.getKey(), shard.getValue(), true);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, shardWriters));
+        }
+
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+    }
+
+    @Override
+    protected StoragePage doScan(String cursor, int limit) {
+        List<OxygenRecord> records = new ArrayList<>();
+        String[] shards = directory.list((dir, name) -> name.endsWith(".yml"));
+        if (shards == null) {
+            return new StoragePage(records, null);
+        }
+        Arrays.sort(shards);
+
+        // Cursor is "<shard file>:<key offset>"
+        String shard = null;
+        int offset = 0;
+        if (cursor != null) {
+            int separator = cursor.lastIndexOf(':');
+            shard = cursor.substring(0, separator);
+            offset = Integer.parseInt(cursor.substring(separator + 1));
+        }
+
+        int index = shard != null ? Arrays.binarySearch(shards, shard) : 0;
+        if (index < 0) {
+            // The shard did not exist yet when the cursor was taken, start at the next one
+            index = -index - 1;
+            offset = 0;
+        }
+
+        for (; index < shards.length; index++, offset = 0) {
+            YamlConfiguration shardConfig = YamlConfiguration.loadConfiguration(new File(directory, shards[index]));
+            ConfigurationSection players = shardConfig.getConfigurationSection("players");
+            if (players == null) {
+                continue;
+            }
+
+            List<String> keys = new ArrayList<>(players.getKeys(false));
+            while (offset < keys.size() && records.size() < limit) {
+                String key = keys.get(offset++);
+                try {
+                    records.add(new OxygenRecord(UUID.fromString(key), players.getString(key + ".name"),
+                            players.getInt(key + ".oxygen", 100), players.getLong(key + ".updated", 0L)));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Skipping invalid player id '" + key + "' in shard " + shards[index]);
+                }
+            }
+
+            if (records.size() >= limit) {
+                boolean more = offset < keys.size() || index + 1 < shards.length;
+                return new StoragePage(records, more ? shards[index] + ":" + offset : null);
+            }
+        }
+        return new StoragePage(records, null);
+    }
+
+    @Override
+    protected void doClose() {
+        shardWriters.shutdown();
+    }
+
+    /**
+     * Splits the old single playerdata.yml into shards and leaves a marker so it is only migrated once.
+     * The old file is left untouched for storage.type: yaml. Players already present in a shard are
+     * kept, which makes an interrupted migration safe to repeat.
+     */
+    private void migrateLegacyFile() throws IOException {
+        YamlConfiguration legacy = YamlConfiguration.loadConfiguration(legacyFile);
+        ConfigurationSection players = legacy.getConfigurationSection("players");
+
+        List<OxygenRecord> records = new ArrayList<>();
+        if (players != null) {
+            for (String key : players.getKeys(false)) {
+                UUID playerId;
+                try {
+                    playerId = UUID.fromString(key);
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Skipping invalid player id '" + key + "' in " + legacyFile.getName());
+                    continue;
+                }
+                records.add(new OxygenRecord(playerId, players.getString(key + ".name"),
+                        players.getInt(key + ".oxygen", 100), players.getLong(key + ".updated", 0L)));
+            }
+        }
+
+        for (Map.Entry<String, List<OxygenRecord>> shard : groupByShard(records, OxygenRecord::getPlayerId).entrySet()) {
+            writeShard(shard.getKey(), shard.getValue(), false);
+        }
+
+        Files.createFile(new File(directory, MIGRATED_MARKER).toPath());
+        logger.info("Migrated " + records.size() + " players from " + legacyFile.getName() + " to sharded storage");
+    }
+
+    private void writeShard(String shard, List<OxygenRecord> records, boolean overwrite) throws IOException {
+        File shardFile = shardFile(shard);
+        YamlConfiguration shardConfig = shardFile.exists()
+                ? YamlConfiguration.loadConfiguration(shardFile)
+                : new YamlConfiguration();
+
+        for (OxygenRecord record : records) {
+            String path = "players." + record.getPlayerId().toString();
+            if (!overwrite && shardConfig.contains(path)) {
+                continue;
+            }
+            shardConfig.set(path + ".oxygen", record.getOxygenLevel());
+            shardConfig.set(path + ".name", record.getPlayerName());
+            shardConfig.set(path + ".updated", record.getUpdatedAt());
+        }
+
+        FileUtils.writeAtomically(shardFile.toPath(), shardConfig.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private <T> Map<String, List<T>> groupByShard(Collection<T> items, Function<T, UUID> idOf) {
+        Map<String, List<T>> shards = new HashMap<>();
+        for (T item : items) {
+            shards.computeIfAbsent(shardOf(idOf.apply(item)), key -> new ArrayList<>()).add(item);
+        }
+        return shards;
+    }
+
+    private String shardOf(UUID playerId) {
+        return playerId.toString().substring(0, prefixLength);
+    }
+
+    private File shardFile(String shard) {
+        return new File(directory, shard + ".yml");
+    }
+}
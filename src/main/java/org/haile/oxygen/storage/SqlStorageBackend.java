@@ -0,0 +1,193 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * JDBC backend storing one row per player.
+ * Subclasses provide the connection pool and the dialect specific upsert.
+ */
+public abstract class SqlStorageBackend extends AbstractStorageBackend {
+    // Keeps IN (...) lists and batches within limits of every supported database
+    private static final int BATCH_SIZE = 500;
+
+    protected final String tableName;
+    private DataSource dataSource;
+
+    protected SqlStorageBackend(Logger logger, Executor executor, String tableName) {
+        super(logger, executor);
+        this.tableName = tableName;
+    }
+
+    /**
+     * Creates the data source used by this backend. Runs on the storage thread.
+     * @return Pooled or embedded data source
+     * @throws Exception If the database cannot be opened
+     */
+    protected abstract DataSource createDataSource() throws Exception;
+
+    /**
+     * Gets the dialect specific statement that inserts or updates one player row.
+     * Parameters are uuid, name, oxygen, updated_at.
+     * @return Upsert SQL
+     */
+    protected abstract String getUpsertSql();
+
+    @Override
+    protected void doInit() throws Exception {
+        dataSource = createDataSource();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                    + "uuid CHAR(36) NOT NULL PRIMARY KEY, "
+                    + "name VARCHAR(16), "
+                    + "oxygen INT NOT NULL, "
+                    + "updated_at BIGINT NOT NULL DEFAULT 0)");
+
+            // Tables created before updated_at existed get the column with 0, i.e. unknown
+            if (!hasColumn(connection, "updated_at")) {
+                statement.executeUpdate("ALTER TABLE " + tableName + " ADD COLUMN updated_at BIGINT NOT NULL DEFAULT 0");
+                logger.info("Added updated_at column to " + tableName);
+            }
+        }
+        logger.info("Connected to " + getName() + " storage, table " + tableName);
+    }
+
+    @Override
+    protected Map<UUID, OxygenRecord> doLoadMany(Collection<UUID> playerIds) throws Exception {
+        Map<UUID, OxygenRecord> result = new HashMap<>();
+        if (playerIds.isEmpty()) {
+            return result;
+        }
+
+        List<UUID> ids = new ArrayList<>(playerIds);
+        try (Connection connection = dataSource.getConnection()) {
+            for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+                List<UUID> chunk = ids.subList(start, Math.min(ids.size(), start + BATCH_SIZE));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT uuid, name, oxygen, updated_at FROM " + tableName
+                                + " WHERE uuid IN (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setString(i + 1, chunk.get(i).toString());
+                    }
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            UUID playerId = UUID.fromString(resultSet.getString("uuid"));
+                            result.put(playerId, new OxygenRecord(playerId, resultSet.getString("name"),
+                                    resultSet.getInt("oxygen"), resultSet.getLong("updated_at")));
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void doSaveMany(Collection<OxygenRecord> records) throws Exception {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(getUpsertSql())) {
+                int pending = 0;
+                for (OxygenRecord record : records) {
+                    statement.setString(1, record.getPlayerId().toString());
+                    statement.setString(2, record.getPlayerName());
+                    statement.setInt(3, record.getOxygenLevel());
+                    statement.setLong(4, record.getUpdatedAt());
+                    statement.addBatch();
+
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @Override
+    protected StoragePage doScan(String cursor, int limit) throws Exception {
+        // Keyset pagination on the primary key, so every page is an index range scan
+        List<OxygenRecord> records = new ArrayList<>();
+        String sql = "SELECT uuid, name, oxygen, updated_at FROM " + tableName
+                + (cursor != null ? " WHERE uuid > ?" : "") + " ORDER BY uuid LIMIT ?";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            int parameter = 1;
+            if (cursor != null) {
+                statement.setString(parameter++, cursor);
+            }
+            statement.setInt(parameter, limit);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    UUID playerId = UUID.fromString(resultSet.getString("uuid"));
+                    records.add(new OxygenRecord(playerId, resultSet.getString("name"),
+                            resultSet.getInt("oxygen"), resultSet.getLong("updated_at")));
+                }
+            }
+        }
+
+        String next = records.size() < limit ? null : records.get(records.size() - 1).getPlayerId().toString();
+        return new StoragePage(records, next);
+    }
+
+    private boolean hasColumn(Connection connection, String column) throws Exception {
+        // Unquoted identifiers are stored in upper case by H2 and as written by MySQL and SQLite
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : new String[]{tableName, tableName.toUpperCase()}) {
+            for (String name : new String[]{column, column.toUpperCase()}) {
+                try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, name)) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+        dataSource = null;
+    }
+}
@@ -0,0 +1,48 @@
+package org.haile.oxygen.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Embedded SQLite backend using the driver bundled with the server
+ */
+public class SqliteStorageBackend extends SqlStorageBackend {
+    private final File databaseFile;
+
+    public SqliteStorageBackend(Logger logger, Executor executor, File databaseFile, String tablePrefix) {
+        super(logger, executor, tablePrefix + "players");
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public String getName() {
+        return "SQLite";
+    }
+
+    @Override
+    protected DataSource createDataSource() {
+        File parent = databaseFile.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        // SQLite allows a single writer, so one pooled connection is enough
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("Oxygen-SQLite");
+        config.setJdbcUrl("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        config.setMaximumPoolSize(1);
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    protected String getUpsertSql() {
+        return "INSERT INTO " + tableName + " (uuid, name, oxygen, updated_at) VALUES (?, ?, ?, ?) "
+                + "ON CONFLICT(uuid) DO UPDATE SET name = excluded.name, oxygen = excluded.oxygen, "
+                + "updated_at = excluded.updated_at";
+    }
+}
@@ -0,0 +1,56 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence backend for player oxygen data.
+ * All operations are asynchronous and complete on the storage thread.
+ */
+public interface StorageBackend {
+
+    /**
+     * Gets the backend name used in logs
+     * @return Backend name
+     */
+    String getName();
+
+    /**
+     * Opens files, pools or tables used by this backend
+     * @return Future completed once the backend is ready
+     */
+    CompletableFuture<Void> init();
+
+    /**
+     * Loads records for a batch of players
+     * @param playerIds The players to load
+     * @return Future with the records that were found, keyed by player UUID
+     */
+    CompletableFuture<Map<UUID, OxygenRecord>> loadMany(Collection<UUID> playerIds);
+
+    /**
+     * Saves a batch of records
+     * @param records The records to save
+     * @return Future completed once the records are durably stored
+     */
+    CompletableFuture<Void> saveMany(Collection<OxygenRecord> records);
+
+    /**
+     * Reads the next page of stored records in a stable order.
+     * Used to stream every player to another backend without loading them all at once.
+     * @param cursor Cursor of the previous page, or null to start at the beginning
+     * @param limit Maximum number of records in the page
+     * @return Future with the page
+     */
+    CompletableFuture<StoragePage> scan(String cursor, int limit);
+
+    /**
+     * Writes anything still pending and releases resources
+     * @return Future completed once the backend is closed
+     */
+    CompletableFuture<Void> close();
+}
@@ -0,0 +1,89 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.models.ConfigSettings;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Creates the storage backend selected by storage.type
+ */
+public class StorageBackends {
+    /**
+     * Storage types that can be passed to {@link #create}, without aliases
+     */
+    public static final List<String> TYPES = Arrays.asList("file", "yaml", "journal", "mapped", "sqlite", "h2", "mysql");
+
+    /**
+     * Creates a backend for a storage type
+     *
+     * @param type Storage type from config (file, sharded, yaml, journal, mapped, sqlite, h2, mysql)
+     * @param plugin Plugin instance
+     * @param configSettings Current settings
+     * @param executor Storage executor
+     * @return The backend, sharded file storage if the type is unknown
+     */
+    public static StorageBackend create(String type, Oxygen plugin, ConfigSettings configSettings, Executor executor) {
+        return create(type, plugin.getDataFolder(), plugin.getLogger(), configSettings, executor);
+    }
+
+    /**
+     * Creates a backend for a storage type without a running plugin, e.g. from the migration tool
+     *
+     * @param type Storage type
+     * @param dataFolder Plugin data folder
+     * @param logger Logger for backend messages
+     * @param configSettings Settings loaded from config.yml
+     * @param executor Storage executor
+     * @return The backend, sharded file storage if the type is unknown
+     */
+    public static StorageBackend create(String type, File dataFolder, Logger logger, ConfigSettings configSettings,
+                                        Executor executor) {
+        String tablePrefix = configSettings.getMysqlTablePrefix();
+
+        String normalized = normalize(type);
+        if (normalized == null) {
+            logger.warning("Unknown storage type '" + type + "', using file storage");
+            normalized = "file";
+        }
+
+        switch (normalized) {
+            case "yaml":
+                return new YamlStorageBackend(logger, executor, new File(dataFolder, "playerdata.yml"));
+            case "journal":
+                return new JournalStorageBackend(logger, executor, new File(dataFolder, "journal"),
+                        configSettings.getJournalCompactAfter());
+            case "mapped":
+                return new MappedStorageBackend(logger, executor, new File(dataFolder, "playerdata.slots"),
+                        configSettings.getMappedInitialCapacity());
+            case "sqlite":
+                return new SqliteStorageBackend(logger, executor, new File(dataFolder, "playerdata.db"), tablePrefix);
+            case "h2":
+                return new H2StorageBackend(logger, executor, new File(dataFolder, "playerdata"), tablePrefix);
+            case "mysql":
+                return new MySqlStorageBackend(logger, executor, configSettings);
+            default:
+                return new ShardedYamlStorageBackend(logger, executor, new File(dataFolder, "playerdata"),
+                        new File(dataFolder, "playerdata.yml"), configSettings.getShardPrefixLength(),
+                        configSettings.getShardWriteThreads());
+        }
+    }
+
+    /**
+     * Resolves aliases of a storage type
+     *
+     * @param type Storage type as written by the user
+     * @return One of {@link #TYPES}, or null if the type is unknown
+     */
+    public static String normalize(String type) {
+        String lower = type.toLowerCase();
+        if (lower.equals("sharded")) {
+            return "file";
+        }
+        return TYPES.contains(lower) ? lower : null;
+    }
+}
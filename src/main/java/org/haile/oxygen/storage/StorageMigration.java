@@ -0,0 +1,135 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Streams every record from one backend to another in bounded pages.
+ * After each page the source cursor is checkpointed, so an interrupted
+ * migration continues where it stopped instead of starting over.
+ */
+public class StorageMigration {
+    private static final long PROGRESS_INTERVAL_MILLIS = 2000L;
+
+    /**
+     * Receives progress updates. Called on the migration thread.
+     */
+    public interface ProgressListener {
+        void onProgress(long migrated, double recordsPerSecond);
+    }
+
+    private final Logger logger;
+    private final StorageBackend source;
+    private final StorageBackend target;
+    private final File checkpointFile;
+    private final int batchSize;
+
+    private volatile boolean cancelled;
+
+    public StorageMigration(Logger logger, StorageBackend source, StorageBackend target,
+                            File checkpointFile, int batchSize) {
+        this.logger = logger;
+        this.source = source;
+        this.target = target;
+        this.checkpointFile = checkpointFile;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Copies all records. Blocks until done, so it must not run on the main thread.
+     * @param restart Ignore an existing checkpoint and start from the beginning
+     * @param listener Progress listener, may be null
+     * @return Number of records copied by this run
+     * @throws Exception If reading, writing or checkpointing fails; the checkpoint is kept
+     */
+    public long run(boolean restart, ProgressListener listener) throws Exception {
+        String cursor = null;
+        long migrated = 0;
+
+        if (!restart && checkpointFile.exists()) {
+            Properties checkpoint = readCheckpoint();
+            cursor = checkpoint.getProperty("cursor");
+            migrated = Long.parseLong(checkpoint.getProperty("migrated", "0"));
+            logger.info("Resuming migration from " + source.getName() + " to " + target.getName()
+                    + " after " + migrated + " players");
+        }
+
+        long started = System.nanoTime();
+        long lastReport = System.currentTimeMillis();
+        long copied = 0;
+
+        while (!cancelled) {
+            StoragePage page = source.scan(cursor, batchSize).join();
+            if (!page.getRecords().isEmpty()) {
+                target.saveMany(page.getRecords()).join();
+            }
+
+            copied += page.getRecords().size();
+            migrated += page.getRecords().size();
+            cursor = page.getNextCursor();
+
+            if (page.isLast()) {
+                break;
+            }
+            writeCheckpoint(cursor, migrated);
+
+            long now = System.currentTimeMillis();
+            if (listener != null && now - lastReport >= PROGRESS_INTERVAL_MILLIS) {
+                listener.onProgress(migrated, rate(copied, started));
+                lastReport = now;
+            }
+        }
+
+        if (cancelled) {
+            logger.info("Migration cancelled after " + migrated + " players, run it again to resume");
+            return copied;
+        }
+
+        Files.deleteIfExists(checkpointFile.toPath());
+        if (listener != null) {
+            listener.onProgress(migrated, rate(copied, started));
+        }
+        logger.info("Migrated " + migrated + " players from " + source.getName() + " to " + target.getName());
+        return copied;
+    }
+
+    /**
+     * Stops after the page that is currently being copied. The checkpoint is kept.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private static double rate(long copied, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1_000_000_000.0;
+        return seconds > 0 ? copied / seconds : 0.0;
+    }
+
+    private Properties readCheckpoint() throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.load(new StringReader(Files.readString(checkpointFile.toPath(), StandardCharsets.UTF_8)));
+        return checkpoint;
+    }
+
+    private void writeCheckpoint(String cursor, long migrated) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("cursor", cursor);
+        checkpoint.setProperty("migrated", String.valueOf(migrated));
+
+        StringWriter writer = new StringWriter();
+        checkpoint.store(writer, "Oxygen storage migration checkpoint");
+        FileUtils.writeAtomically(checkpointFile.toPath(), writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
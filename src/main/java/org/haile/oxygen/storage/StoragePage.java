@@ -0,0 +1,34 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+
+import java.util.List;
+
+/**
+ * One page of records read from a backend by a scan
+ */
+public final class StoragePage {
+    private final List<OxygenRecord> records;
+    private final String nextCursor;
+
+    public StoragePage(List<OxygenRecord> records, String nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OxygenRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the position to continue from
+     * @return Opaque cursor, or null if this was the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+}
@@ -0,0 +1,111 @@
+package org.haile.oxygen.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.haile.oxygen.models.OxygenRecord;
+import org.haile.oxygen.utils.FileUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Stores all players in a single playerdata.yml document
+ */
+public class YamlStorageBackend extends AbstractStorageBackend {
+    private final File dataFile;
+    private FileConfiguration dataConfig = new YamlConfiguration();
+
+    public YamlStorageBackend(Logger logger, Executor executor, File dataFile) {
+        super(logger, executor);
+        this.dataFile = dataFile;
+    }
+
+    @Override
+    public String getName() {
+        return "YAML";
+    }
+
+    @Override
+    protected void doInit() throws Exception {
+        File parent = dataFile.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        if (!dataFile.exists()) {
+            dataFile.createNewFile();
+            logger.info("Created new " + dataFile.getName() + " file");
+        }
+
+        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+        logger.info("Loaded player data from " + dataFile.getName());
+    }
+
+    @Override
+    protected Map<UUID, OxygenRecord> doLoadMany(Collection<UUID> playerIds) {
+        Map<UUID, OxygenRecord> result = new HashMap<>();
+        for (UUID playerId : playerIds) {
+            String path = "players." + playerId.toString();
+            if (dataConfig.contains(path + ".oxygen")) {
+                result.put(playerId, new OxygenRecord(playerId,
+                        dataConfig.getString(path + ".name"),
+                        dataConfig.getInt(path + ".oxygen", 100),
+                        dataConfig.getLong(path + ".updated", 0L)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void doSaveMany(Collection<OxygenRecord> records) throws Exception {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        for (OxygenRecord record : records) {
+            String path = "players." + record.getPlayerId().toString();
+            dataConfig.set(path + ".oxygen", record.getOxygenLevel());
+            dataConfig.set(path + ".name", record.getPlayerName());
+            dataConfig.set(path + ".updated", record.getUpdatedAt());
+        }
+
+        FileUtils.writeAtomically(dataFile.toPath(), dataConfig.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected StoragePage doScan(String cursor, int limit) {
+        List<OxygenRecord> records = new ArrayList<>();
+        ConfigurationSection players = dataConfig.getConfigurationSection("players");
+        if (players == null) {
+            return new StoragePage(records, null);
+        }
+
+        // Keys keep file order and new players are appended, so an index is a stable cursor
+        List<String> keys = new ArrayList<>(players.getKeys(false));
+        int index = cursor != null ? Integer.parseInt(cursor) : 0;
+        while (index < keys.size() && records.size() < limit) {
+            String key = keys.get(index++);
+            try {
+                records.add(new OxygenRecord(UUID.fromString(key), players.getString(key + ".name"),
+                        players.getInt(key + ".oxygen", 100), players.getLong(key + ".updated", 0L)));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Skipping invalid player id '" + key + "' in " + dataFile.getName());
+            }
+        }
+        return new StoragePage(records, index < keys.size() ? String.valueOf(index) : null);
+    }
+
+    @Override
+    protected void doClose() {
+        // Nothing to release, every save is already on disk
+    }
+}
@@ -0,0 +1,67 @@
+package org.haile.oxygen.tasks;
+
+import org.bukkit.entity.Player;
+import org.haile.oxygen.models.EffectTier;
+import org.haile.oxygen.models.OxygenPlayer;
+import org.haile.oxygen.models.OxygenZone;
+import org.haile.oxygen.models.WarningLevel;
+import org.haile.oxygen.scheduler.OxygenTask;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reusable check state of one active player.
+ * A player is in at most one check at a time, so the same object carries the
+ * snapshot taken on the owning thread, the decision computed from it and the
+ * scheduling handle, and a steady-state check allocates nothing.
+ */
+public final class OxygenCheck {
+    // Take the oxygen consumed since the last update
+    static final int CONSUME = 1;
+    // Enter, refresh or leave a low oxygen effect tier
+    static final int EFFECTS = 1 << 1;
+    // Queue depletion damage if the player is still out of oxygen
+    static final int DAMAGE = 1 << 2;
+
+    final Player player;
+
+    // Paper: the player's timer on the wheel. Folia: the pending entity task and the runnable it runs
+    TimingWheel.Timer<OxygenCheck> timer;
+    OxygenTask task;
+    Runnable entityRun;
+    // Oxygen settings of the player's current block, written when they are re-evaluated
+    OxygenZone currentZone = OxygenZone.NONE;
+
+    // Snapshot, written on the thread that owns the player
+    OxygenPlayer oxygenPlayer;
+    long now;
+    double consumptionMultiplier;
+    OxygenZone zone;
+    long oxygenMicros;
+    int lastWarningLevel;
+    long lastUpdateTick;
+    EffectTier effectTier;
+    long effectRefreshTick;
+    long depletedSinceTick;
+
+    // Decision, written by the compute step. The rate stays in effect until the next check,
+    // and is negative while the player refills in an oxygen zone
+    int flags;
+    long ratePerTick;
+    long consumedMicros;
+    int newLevel;
+    EffectTier targetEffectTier;
+    long depletedAtTick;
+    double damage;
+    long nextCheckTick;
+    List<WarningLevel> warnings = Collections.emptyList();
+
+    OxygenCheck(Player player) {
+        this.player = player;
+    }
+
+    boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+}
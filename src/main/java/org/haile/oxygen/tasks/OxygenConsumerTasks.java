@@ -1,42 +1,100 @@
 package org.haile.oxygen.tasks;
 
 import org.bukkit.GameMode;
-import org.bukkit.Material;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.managers.DepletionDamageManager;
+import org.haile.oxygen.managers.LowOxygenEffectManager;
 import org.haile.oxygen.managers.NotificationManager;
 import org.haile.oxygen.managers.OxygenPlayerManager;
 import org.haile.oxygen.managers.RegionChecker;
 import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.models.EffectTier;
+import org.haile.oxygen.models.OxygenPlayer;
+import org.haile.oxygen.models.OxygenZone;
+import org.haile.oxygen.scheduler.OxygenScheduler;
+import org.haile.oxygen.scheduler.OxygenTask;
 import org.haile.oxygen.utils.WorldUtils;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+
+/**
+ * Runs the oxygen checks of players who currently consume or refill oxygen.
+ * On Paper their next checks wait in a timing wheel on the main thread; on Folia
+ * each check is a delayed task on the player's own entity scheduler.
+ */
+public class OxygenConsumerTasks implements Listener {
+    // One revolution covers 25 seconds; longer intervals wait extra rounds in their slot
+    private static final int WHEEL_SLOTS = 512;
+
+    // With a tick budget, no check waits in the backlog much longer than this
+    private static final int MAX_BACKLOG_TICKS = 20;
 
-public class OxygenConsumerTasks extends BukkitRunnable {
     private final Oxygen plugin;
     private final OxygenPlayerManager oxygenManager;
     private final RegionChecker regionChecker;
     private final NotificationManager notificationManager;
+    private final LowOxygenEffectManager effectManager;
+    private final DepletionDamageManager damageManager;
     private final ConfigSettings configSettings;
+    private final OxygenScheduler scheduler;
+
+    // Active players; each entry is only touched by the thread that owns the player
+    private final Map<UUID, OxygenCheck> activeChecks = new ConcurrentHashMap<>();
 
-    // Track last oxygen decrease time for each player
-    private final Map<UUID, Long> lastDecreaseTime = new HashMap<>();
+    // Paper: owned by the main thread
+    private final TimingWheel<OxygenCheck> wheel;
+    private final ArrayDeque<OxygenCheck> backlog = new ArrayDeque<>();
+    private final List<OxygenCheck> dueChecks = new ArrayList<>();
+    // Checks that decided on depletion damage this tick, dealt after all checks ran
+    private final List<OxygenCheck> depleted = new ArrayList<>();
+    // Moving average of the main-thread cost of one check, used to size each tick's bucket
+    private double averageCheckNanos = 20_000.0;
+    private final Consumer<OxygenCheck> onWheelDue = this::onWheelDue;
+    private final Consumer<OxygenCheck> computeCheck = this::compute;
+    private final List<ComputingBatch> computing = new ArrayList<>();
+    private ForkJoinPool computePool;
 
-    // Pumpkin helmet increases oxygen decrease interval by 5x (from 1s to 5s)
-    private static final long PUMPKIN_MULTIPLIER = 5L;
+    // Plugin tick counter, carried over when the task is restarted; written by the global tick only
+    private volatile long currentTick;
+    private OxygenTask tickTask;
 
     public OxygenConsumerTasks(Oxygen plugin, OxygenPlayerManager oxygenManager,
                                RegionChecker regionChecker, NotificationManager notificationManager,
-                               ConfigSettings configSettings) {
+                               ConfigSettings configSettings, OxygenScheduler scheduler, long startTick) {
         this.plugin = plugin;
+        this.currentTick = startTick;
+        this.wheel = new TimingWheel<>(WHEEL_SLOTS, startTick);
+        this.scheduler = scheduler;
         this.oxygenManager = oxygenManager;
         this.regionChecker = regionChecker;
         this.notificationManager = notificationManager;
+        this.effectManager = plugin.getEffectManager();
+        this.damageManager = plugin.getDamageManager();
         this.configSettings = configSettings;
     }
 
@@ -50,118 +108,676 @@ public class OxygenConsumerTasks extends BukkitRunnable {
     }
 
     /**
-     * Checks if player is wearing a carved pumpkin helmet
-     * @param player The player to check
-     * @return true if player is wearing carved pumpkin on head
+     * Gets a player's oxygen consumption per tick
+     * @param consumptionMultiplier The player's equipment multiplier
+     * @param zone The oxygen settings where the player stands
+     * @return Consumption in micro-units per tick, 0 if the player does not consume oxygen,
+     *         negative if they refill
      */
-    private boolean isWearingCarvedPumpkin(Player player) {
-        ItemStack helmet = player.getInventory().getHelmet();
-        return helmet != null && helmet.getType() == Material.CARVED_PUMPKIN;
+    private long getRatePerTick(double consumptionMultiplier, OxygenZone zone) {
+        if (zone.isOxygenZone()) {
+            // Refill rate is per second regardless of equipment
+            return -Math.round(OxygenPlayer.UNIT * zone.getRefillPerSecond() / 20.0);
+        }
+
+        // One unit per decrease-rate ticks, scaled by every modifier; a carved pumpkin (0.2) makes it 5x slower
+        double baseRate = (double) OxygenPlayer.UNIT / Math.max(1, configSettings.getDecreaseRate());
+        return Math.max(0L, Math.round(baseRate * consumptionMultiplier * zone.getConsumptionMultiplier()));
     }
 
     /**
-     * Gets the oxygen decrease interval for a player based on their equipment
-     * @param player The player to check
-     * @return Interval in milliseconds between oxygen decreases
+     * Starts the global tick, registers the tracking listeners and checks everyone already online
      */
-    private long getOxygenDecreaseInterval(Player player) {
-        // Get base decrease rate from config (in ticks)
-        long baseRateTicks = configSettings.getDecreaseRate();
+    public void start() {
+        if (!scheduler.isRegionThreaded()) {
+            computePool = new ForkJoinPool(configSettings.getComputeThreads(), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("Oxygen-Compute-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
 
-        // Convert ticks to milliseconds (1 tick = 50ms) - tang so giay len 5s khi deo mu
-        long baseRateMs = baseRateTicks * 50L;
+        tickTask = scheduler.runTimer(this::tick, 1L, 1L);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+
+        if (scheduler.isRegionThreaded()) {
+            // Each player is refreshed on the thread that owns them
+            refreshAll();
+            return;
+        }
+
+        // Spread the first checks of everyone online over one decrease interval instead of one tick,
+        // otherwise they would stay in lockstep after every reload
+        int spread = Math.max(1, configSettings.getDecreaseRate());
+        int index = 0;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            refresh(player, player.getGameMode(), player.getLocation());
+            OxygenCheck check = activeChecks.get(player.getUniqueId());
+            if (check != null) {
+                wheel.schedule(check.timer, currentTick + 1 + (index++ % spread));
+            }
+        }
+    }
+
+    /**
+     * Re-evaluates every online player on their own thread, e.g. after oxygen zones
+     * changed under players who are standing still
+     */
+    public void refreshAll() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (scheduler.isRegionThreaded()) {
+                scheduler.runForPlayerLater(player,
+                        () -> refresh(player, player.getGameMode(), player.getLocation()), null, 1L);
+            } else {
+                refresh(player, player.getGameMode(), player.getLocation());
+            }
+        }
+    }
+
+    /**
+     * Re-evaluates whether a player consumes oxygen and starts or stops their checks.
+     * Called from events only, so players outside oxygen zones cost nothing per tick.
+     * Must run on the thread that owns the player.
+     * @param player The player
+     * @param gameMode The player's (new) gamemode
+     * @param location The player's (new) location
+     */
+    private void refresh(Player player, GameMode gameMode, Location location) {
+        // Looked up for everyone, so region enter/leave is published regardless of gamemode or world;
+        // cached per block, so this only queries the index when the player reached another block
+        OxygenZone zone = regionChecker.getZone(player, location);
 
-        // If wearing carved pumpkin, multiply the interval by PUMPKIN_MULTIPLIER
-        if (isWearingCarvedPumpkin(player)) {
-            return baseRateMs * PUMPKIN_MULTIPLIER;
+        // Skip players in disallowed gamemodes
+        if (!configSettings.getAllowedGameModes().contains(gameMode)) {
+            // Clean up tracking for players in disallowed gamemodes
+            deactivate(player);
+            return;
+        }
+
+        // Check if player is in an allowed world
+        World world = location.getWorld();
+        if (world == null || !WorldUtils.isAllowedWorld(world.getName(), configSettings.getAllowedWorlds(),
+                configSettings.isWorldsAreWhitelist())) {
+            deactivate(player);
+
+            // Refill once when leaving the oxygen worlds instead of on every tick
+            if (oxygenManager.getOxygen(player) < configSettings.getMaxOxygenLevel()) {
+                oxygenManager.setOxygen(player, configSettings.getMaxOxygenLevel());
+            }
+            return;
+        }
+
+        // If player is in an oxygen zone, then will not consume oxygen; they only stay active to refill
+        if (zone.isOxygenZone() && zone.getRefillPerSecond() <= 0) {
+            // Consumption so far is settled; the fraction of a unit carries over when they leave
+            deactivate(player);
+            return;
+        }
+
+        activate(player, zone);
+    }
+
+    /**
+     * Applies the oxygen consumed since the player's last update at the rate of their last check.
+     * Must run on the thread that owns the player.
+     * @param check The player's check
+     * @param stopClock True when the player stops consuming
+     */
+    private void settle(OxygenCheck check, boolean stopClock) {
+        OxygenPlayer oxygenPlayer = oxygenManager.getOxygenPlayer(check.player);
+        if (oxygenPlayer == null) {
+            return;
+        }
+
+        long lastUpdateTick = oxygenPlayer.getLastUpdateTick();
+        if (lastUpdateTick >= 0 && currentTick > lastUpdateTick && check.ratePerTick > 0) {
+            oxygenManager.consumeOxygen(check.player, check.ratePerTick * (currentTick - lastUpdateTick));
+        }
+        oxygenPlayer.setLastUpdateTick(stopClock ? -1L : currentTick);
+    }
+
+    /**
+     * Moves an active player's next check after their consumption multiplier changed,
+     * so taking off a modifier does not wait for the longer interval to run out.
+     * Must run on the thread that owns the player.
+     * @param player The player
+     */
+    public void reschedule(Player player) {
+        OxygenCheck check = activeChecks.get(player.getUniqueId());
+        if (check == null) {
+            return;
+        }
+
+        // Settle at the old rate; the next check works out the deadline from the new multiplier
+        if (scheduler.isRegionThreaded()) {
+            if (check.task != null) {
+                check.task.cancel();
+            }
+            settle(check, false);
+            scheduleOnEntity(check, currentTick + 1);
+        } else if (check.timer.isScheduled()) {
+            // A check in the backlog or computing already covers the time up to now
+            settle(check, false);
+            wheel.schedule(check.timer, currentTick + 1);
         }
+    }
 
-        return baseRateMs;
+    /**
+     * Checks whether a player currently consumes oxygen
+     * @param playerId The player's UUID
+     * @return True if the player has a scheduled oxygen check
+     */
+    public boolean isActive(UUID playerId) {
+        return activeChecks.containsKey(playerId);
     }
 
     /**
-     * Checks if enough time has passed to decrease oxygen for this player
-     * @param player The player to check
-     * @return true if oxygen should be decreased
+     * Schedules a player's first oxygen check on the next tick unless already scheduled.
+     * An active player who moved into a region with other oxygen settings is rescheduled.
      */
-    private boolean shouldDecreaseOxygen(Player player) {
+    private void activate(Player player, OxygenZone zone) {
         UUID playerId = player.getUniqueId();
-        long currentTime = System.currentTimeMillis();
+        OxygenCheck active = activeChecks.get(playerId);
+        if (active != null) {
+            if (active.currentZone != zone) {
+                active.currentZone = zone;
+                reschedule(player);
+            }
+            return;
+        }
 
-        // Get the required interval for this player
-        long requiredInterval = getOxygenDecreaseInterval(player);
+        OxygenCheck check = new OxygenCheck(player);
+        check.currentZone = zone;
+        activeChecks.put(playerId, check);
+        if (scheduler.isRegionThreaded()) {
+            check.entityRun = () -> runOnEntity(check);
+            scheduleOnEntity(check, currentTick + 1);
+            return;
+        }
 
-        // Get last decrease time, default to 0 if not found
-        long lastTime = lastDecreaseTime.getOrDefault(playerId, 0L);
+        check.timer = wheel.newTimer(check);
+        wheel.schedule(check.timer, wheel.getCurrentTick() + 1);
+    }
 
-        // Check if enough time has passed
-        if (currentTime - lastTime >= requiredInterval) {
-            // Update last decrease time
-            lastDecreaseTime.put(playerId, currentTime);
-            return true;
+    /**
+     * Stops a player's oxygen checks and settles what they consumed since the last one.
+     * A check already computing for them is dropped.
+     */
+    private void deactivate(Player player) {
+        OxygenCheck check = activeChecks.remove(player.getUniqueId());
+        if (check == null) {
+            return;
         }
 
-        return false;
+        settle(check, true);
+
+        if (check.task != null) {
+            check.task.cancel();
+            check.task = null;
+        }
+        if (check.timer != null) {
+            wheel.cancel(check.timer);
+            // A check waiting for its turn would otherwise still be snapshotted
+            backlog.remove(check);
+        }
     }
 
-    @Override
-    public void run() {
-        // Get settings from ConfigSettings
-        Set<GameMode> allowedGameModes = configSettings.getAllowedGameModes();
-        Set<String> allowedWorlds = configSettings.getAllowedWorlds();
-        boolean worldsAreWhitelist = configSettings.isWorldsAreWhitelist();
-        int maxOxygen = configSettings.getMaxOxygenLevel();
+    /**
+     * Stops tracking a player
+     * @param player The player
+     */
+    public void untrack(Player player) {
+        deactivate(player);
+    }
 
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-            UUID playerId = player.getUniqueId();
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        refresh(player, player.getGameMode(), player.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // Before the player is unloaded, so what they consumed since their last check is saved
+        untrack(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        Player player = event.getPlayer();
+        refresh(player, player.getGameMode(), player.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerGameModeChange(PlayerGameModeChangeEvent event) {
+        // Fired before the change, so use the new gamemode
+        Player player = event.getPlayer();
+        refresh(player, event.getNewGameMode(), player.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // Fired before the teleport, so use the destination
+        Player player = event.getPlayer();
+        refresh(player, player.getGameMode(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        Player player = event.getPlayer();
+        // Dying cleared the player's effects, so give them again on the next tick if still low
+        OxygenPlayer oxygenPlayer = oxygenManager.getOxygenPlayer(player);
+        if (oxygenPlayer != null) {
+            effectManager.forget(oxygenPlayer);
+        }
+        refresh(player, player.getGameMode(), event.getRespawnLocation());
+        reschedule(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        // Region enter/leave: only looked at when the player moves to another block
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+            return;
+        }
+        Player player = event.getPlayer();
+        refresh(player, player.getGameMode(), to);
+    }
+
+    /**
+     * Advances the plugin clock. On Paper it also runs the due checks, then deals the depletion
+     * damage they decided; on Folia player checks run on their own regions.
+     */
+    private void tick() {
+        if (scheduler.isRegionThreaded()) {
+            // Player checks run on their own regions; the global tick only keeps the clock
+            currentTick++;
+            return;
+        }
+
+        try {
+            runChecks();
+        } finally {
+            if (!depleted.isEmpty()) {
+                applyDepletionDamage();
+            }
+        }
+    }
+
+    /**
+     * Runs this tick's due checks on Paper.
+     * Due checks wait in the backlog and, with a tick budget, only as many as fit are taken.
+     * Late checks still use their own deadline as their tick, so no consumption is lost or
+     * counted twice. When many are due at once, their decisions are computed on the compute
+     * pool and applied on a following tick.
+     */
+    private void runChecks() {
+        // Phase 2 of earlier ticks: apply decisions that finished computing
+        if (!computing.isEmpty()) {
+            applyComputed();
+        }
+
+        wheel.advance(onWheelDue);
+        currentTick = wheel.getCurrentTick();
+        if (backlog.isEmpty()) {
+            return;
+        }
 
-            // Skip players in disallowed gamemodes
-            if (!WorldUtils.isPlayerInAllowedGameMode(player, allowedGameModes)) {
-                // Clean up tracking for players in disallowed gamemodes
-                lastDecreaseTime.remove(playerId);
-                continue;
+        // Take this tick's bucket from the backlog
+        int bucketSize = getBucketSize();
+        for (int i = 0; i < bucketSize && !backlog.isEmpty(); i++) {
+            dueChecks.add(backlog.poll());
+        }
+
+        long started = System.nanoTime();
+        int processed = dueChecks.size();
+        try {
+            if (dueChecks.size() < configSettings.getParallelThreshold()) {
+                // Not worth a hand-off, do all three steps right away
+                for (int i = 0; i < dueChecks.size(); i++) {
+                    OxygenCheck check = dueChecks.get(i);
+                    // An effect applied earlier in this loop may have deactivated the player
+                    if (!isCurrent(check)) {
+                        continue;
+                    }
+                    // A check carried over from an earlier tick still counts at its own deadline
+                    snapshot(check, check.timer.getDeadline());
+                    compute(check);
+                    applyEffects(check);
+                    wheel.schedule(check.timer, check.nextCheckTick);
+                }
+                return;
             }
 
-            // Check if player is in an allowed world
-            boolean worldAllowed = WorldUtils.isPlayerInAllowedWorld(player, allowedWorlds, worldsAreWhitelist);
+            // Phase 1: snapshots on the main thread, decisions on the compute pool
+            List<OxygenCheck> batch = new ArrayList<>(dueChecks.size());
+            for (OxygenCheck check : dueChecks) {
+                // Snapshotting a player who quit would load them back into the online map
+                if (isCurrent(check)) {
+                    snapshot(check, check.timer.getDeadline());
+                    batch.add(check);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            computing.add(new ComputingBatch(batch, computePool.submit(() -> batch.parallelStream().forEach(computeCheck))));
+        } finally {
+            dueChecks.clear();
+            long elapsed = System.nanoTime() - started;
+            averageCheckNanos = averageCheckNanos * 0.9 + (elapsed / (double) processed) * 0.1;
+        }
+    }
 
-            if (!worldAllowed) {
-                // If player is in a disallowed world, ensure they have full oxygen
-                oxygenManager.setOxygen(player, maxOxygen);
-                // Clean up tracking for this player
-                lastDecreaseTime.remove(playerId);
-                continue;
+    /**
+     * Deals the depletion damage decided during this tick in one pass. Damage can kill, fire events
+     * and make other plugins change the player, so none of it happens in the middle of the check loop.
+     */
+    private void applyDepletionDamage() {
+        for (int i = 0; i < depleted.size(); i++) {
+            OxygenCheck check = depleted.get(i);
+            // Still active, online and not refilled since the check
+            if (isCurrent(check) && check.oxygenPlayer.getOxygenMicros() == 0) {
+                damageManager.damage(check.player, check.damage, check.now - check.depletedAtTick);
             }
+        }
+        depleted.clear();
+    }
+
+    /**
+     * Checks that a check still belongs to an online, active player
+     */
+    private boolean isCurrent(OxygenCheck check) {
+        return activeChecks.get(check.player.getUniqueId()) == check && check.player.isOnline();
+    }
+
+    /**
+     * Gets the number of backlog checks to process this tick
+     * @return All of them without a tick budget, otherwise as many as fit in the budget
+     */
+    private int getBucketSize() {
+        long budgetNanos = configSettings.getTickBudgetMicros() * 1000L;
+        if (budgetNanos <= 0) {
+            return backlog.size();
+        }
+
+        int fitting = (int) Math.max(1L, (long) (budgetNanos / Math.max(1.0, averageCheckNanos)));
+        // Never fall further behind than MAX_BACKLOG_TICKS, even if that means going over budget
+        int minimum = (backlog.size() + MAX_BACKLOG_TICKS - 1) / MAX_BACKLOG_TICKS;
+        return Math.max(fitting, minimum);
+    }
+
+    private void onWheelDue(OxygenCheck check) {
+        if (!check.player.isOnline()) {
+            untrack(check.player);
+            return;
+        }
+        backlog.add(check);
+    }
 
-            // If player is in a spaceship region, then will not consume oxygen
-            if (regionChecker.isInSpaceshipRegion(player)) {
-                // Don't clean up tracking - they might leave the spaceship region
-                continue;
+    /**
+     * Applies every finished batch in submission order. Batches still computing are left for a later tick.
+     */
+    private void applyComputed() {
+        Iterator<ComputingBatch> iterator = computing.iterator();
+        while (iterator.hasNext()) {
+            ComputingBatch batch = iterator.next();
+            if (!batch.future.isDone()) {
+                return;
+            }
+            iterator.remove();
+
+            try {
+                batch.future.join();
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Error computing oxygen checks: " + e.getMessage());
+                // Check everyone in the failed batch again on the next tick
+                for (OxygenCheck check : batch.checks) {
+                    check.nextCheckTick = currentTick + 1;
+                    check.flags = 0;
+                }
+            }
+
+            for (OxygenCheck check : batch.checks) {
+                // The player quit or left the oxygen zone while their check was computing
+                if (!isCurrent(check)) {
+                    continue;
+                }
+                applyEffects(check);
+                wheel.schedule(check.timer, check.nextCheckTick);
             }
+        }
+    }
+
+    private void scheduleOnEntity(OxygenCheck check, long deadline) {
+        check.task = scheduler.runForPlayerLater(check.player, check.entityRun,
+                () -> activeChecks.remove(check.player.getUniqueId(), check), deadline - currentTick);
+    }
+
+    /**
+     * Runs a check on the region thread that owns the player (Folia)
+     */
+    private void runOnEntity(OxygenCheck check) {
+        if (!isCurrent(check)) {
+            return;
+        }
+        snapshot(check, currentTick);
+        compute(check);
+        applyEffects(check);
+        scheduleOnEntity(check, check.nextCheckTick);
+        // A region only ever runs this one check at a time, so its damage batch is just this player
+        if (check.has(OxygenCheck.DAMAGE) && check.oxygenPlayer.getOxygenMicros() == 0) {
+            damageManager.damage(check.player, check.damage, check.now - check.depletedAtTick);
+        }
+    }
+
+    /**
+     * Captures what a check needs to know. Must run on the thread that owns the player.
+     * @param check The due player's check
+     * @param now Current tick
+     */
+    private void snapshot(OxygenCheck check, long now) {
+        OxygenPlayer oxygenPlayer = oxygenManager.getOxygenPlayer(check.player);
+        if (oxygenPlayer == null) {
+            // If player not found, initialize from storage
+            oxygenManager.loadOxygen(check.player);
+            oxygenPlayer = oxygenManager.getOxygenPlayer(check.player);
+        }
+
+        check.oxygenPlayer = oxygenPlayer;
+        check.now = now;
+        check.consumptionMultiplier = oxygenPlayer.getConsumptionMultiplier();
+        check.zone = check.currentZone;
+        check.oxygenMicros = oxygenPlayer.getOxygenMicros();
+        check.lastWarningLevel = oxygenPlayer.getLastWarningLevel();
+        check.lastUpdateTick = oxygenPlayer.getLastUpdateTick();
+        check.effectTier = oxygenPlayer.getEffectTier();
+        check.effectRefreshTick = oxygenPlayer.getEffectRefreshTick();
+        check.depletedSinceTick = oxygenPlayer.getDepletedSinceTick();
+    }
 
-            // Check if enough time has passed to decrease oxygen for this specific player
-            if (!shouldDecreaseOxygen(player)) {
-                continue; // Skip oxygen decrease - not enough time passed for this player
+    /**
+     * Decides what happens to an active player. Only reads the snapshot and settings,
+     * so it is safe to call from any thread. Gamemode, world and region are not
+     * checked here: inactive players are never scheduled. The next check is set for the
+     * tick the whole level shown to the player drops next.
+     * @param check The player's check holding a fresh snapshot
+     */
+    private void compute(OxygenCheck check) {
+        long now = check.now;
+        long rate = getRatePerTick(check.consumptionMultiplier, check.zone);
+        check.ratePerTick = rate;
+        check.warnings = Collections.emptyList();
+
+        // A single multiply-add covers every tick since the last update, whatever the rate
+        long elapsed = check.lastUpdateTick >= 0 ? Math.max(0L, now - check.lastUpdateTick) : 0L;
+        long maxMicros = configSettings.getMaxOxygenLevel() * OxygenPlayer.UNIT;
+        long consumed = rate >= 0
+                ? Math.min(check.oxygenMicros, rate * elapsed)
+                : -Math.min(Math.max(0L, maxMicros - check.oxygenMicros), -rate * elapsed);
+        long remaining = check.oxygenMicros - consumed;
+        int oldLevel = OxygenPlayer.toLevel(check.oxygenMicros);
+        int newLevel = OxygenPlayer.toLevel(remaining);
+        check.consumedMicros = consumed;
+        check.newLevel = newLevel;
+
+        int flags = consumed != 0 ? OxygenCheck.CONSUME : 0;
+        if (newLevel != oldLevel) {
+            // Warnings compare the new level with the one of the previous change
+            check.warnings = notificationManager.findCrossedWarnings(check.lastWarningLevel, newLevel);
+        }
+
+        long nextCheckTick;
+        if (rate < 0) {
+            // Refilling: wake up when the whole level rises next, or look again after one base interval once full
+            if (remaining >= maxMicros) {
+                nextCheckTick = now + configSettings.getDecreaseRate();
+            } else {
+                long toNextLevel = newLevel * OxygenPlayer.UNIT - remaining + 1;
+                nextCheckTick = now + Math.max(1L, (toNextLevel - rate - 1) / -rate);
             }
+        } else if (rate == 0) {
+            // Equipment or a region that stops consumption entirely; look again after one base interval
+            nextCheckTick = now + configSettings.getDecreaseRate();
+        } else if (remaining == 0) {
+            // Out of oxygen: damage once per unit the player would have consumed, growing with the time at 0
+            long depletedAt = check.depletedSinceTick;
+            if (depletedAt < 0) {
+                // Ran out during this interval, at the tick the last micro-unit was used up
+                depletedAt = check.lastUpdateTick >= 0
+                        ? Math.min(now, check.lastUpdateTick + (check.oxygenMicros + rate - 1) / rate)
+                        : now;
+            }
+            check.depletedAtTick = depletedAt;
+            if (elapsed > 0) {
+                flags |= OxygenCheck.DAMAGE;
+                check.damage = damageManager.getDamage(now - depletedAt);
+            }
+            nextCheckTick = now + Math.max(1L, (OxygenPlayer.UNIT + rate - 1) / rate);
+        } else {
+            // Wake up exactly when the whole level shown to the player drops next
+            long toNextLevel = remaining - (newLevel - 1) * OxygenPlayer.UNIT;
+            nextCheckTick = now + Math.max(1L, (toNextLevel + rate - 1) / rate);
+        }
 
-            // Decrease oxygen for this player
-            int currentOxygen = oxygenManager.getOxygen(player);
-            oxygenManager.decreaseOxygen(player);
+        // Effects only change when the tier does or shortly before they run out
+        EffectTier target = effectManager.findTier(newLevel);
+        check.targetEffectTier = target;
+        if (effectManager.needsUpdate(check.effectTier, check.effectRefreshTick, target, now)) {
+            flags |= OxygenCheck.EFFECTS;
+        }
+        if (target != null) {
+            long refreshTick = (flags & OxygenCheck.EFFECTS) != 0
+                    ? effectManager.getRefreshTick(target, now)
+                    : check.effectRefreshTick;
+            nextCheckTick = Math.min(nextCheckTick, refreshTick);
+        }
 
-            // Check if we need to display warnings
-            notificationManager.checkAndSendWarnings(player, currentOxygen);
+        check.flags = flags;
+        check.nextCheckTick = nextCheckTick;
+    }
 
-            // Apply damage if oxygen is depleted
-            if (oxygenManager.getOxygen(player) == 0) {
-                oxygenManager.applyDamage(player);
+    /**
+     * Makes the Bukkit calls decided by {@link #compute}. Must run on the thread that owns the player.
+     * @param check The player's computed check
+     */
+    private void applyEffects(OxygenCheck check) {
+        Player player = check.player;
+        OxygenPlayer oxygenPlayer = check.oxygenPlayer;
+        // The decision's tick rather than the current one, so a batch applied a tick late loses no consumption
+        oxygenPlayer.setLastUpdateTick(check.now);
+        if (check.has(OxygenCheck.CONSUME)) {
+            // Relative, so a command that changed the level since the snapshot is kept
+            oxygenManager.consumeOxygen(player, check.consumedMicros);
+        }
+        oxygenPlayer.setLastWarningLevel(check.newLevel);
+        if (!check.warnings.isEmpty()) {
+            notificationManager.sendWarnings(player, check.warnings, check.newLevel);
+        }
+
+        if (check.has(OxygenCheck.EFFECTS)) {
+            effectManager.apply(player, oxygenPlayer, check.targetEffectTier, check.now);
+        }
+        if (check.has(OxygenCheck.DAMAGE)) {
+            // Not if a command refilled the player since the snapshot
+            if (oxygenPlayer.getDepletedSinceTick() < 0 && oxygenPlayer.getOxygenMicros() == 0) {
+                oxygenPlayer.setDepletedSinceTick(check.depletedAtTick);
+            }
+            // Paper deals it at the end of the tick; Folia right after this check
+            if (!scheduler.isRegionThreaded()) {
+                depleted.add(check);
             }
         }
     }
 
-    @Override
+    /**
+     * Gets the number of players who currently consume oxygen
+     * @return Active player count
+     */
+    public int getActiveCount() {
+        return activeChecks.size();
+    }
+
+    /**
+     * Gets the number of due checks waiting for a tick with budget left
+     * @return Backlog size
+     */
+    public int getBacklogSize() {
+        return backlog.size();
+    }
+
+    /**
+     * Gets the plugin tick counter, so a restarted task can continue from it
+     * @return Current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Stops the tick and every scheduled player check
+     */
     public void cancel() {
         // Clean up tracking when task is cancelled
-        lastDecreaseTime.clear();
-        super.cancel();
+        HandlerList.unregisterAll(this);
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        for (OxygenCheck check : activeChecks.values()) {
+            if (check.task != null) {
+                check.task.cancel();
+            }
+            if (check.timer != null) {
+                wheel.cancel(check.timer);
+            }
+        }
+        activeChecks.clear();
+        backlog.clear();
+        depleted.clear();
+
+        // Decisions still computing are dropped; the new task checks everyone again on its first tick
+        computing.clear();
+        if (computePool != null) {
+            computePool.shutdownNow();
+            computePool = null;
+        }
+    }
+
+    /**
+     * Checks handed to the compute pool together with the pool task computing them
+     */
+    private static final class ComputingBatch {
+        private final List<OxygenCheck> checks;
+        private final ForkJoinTask<?> future;
+
+        private ComputingBatch(List<OxygenCheck> checks, ForkJoinTask<?> future) {
+            this.checks = checks;
+            this.future = future;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package org.haile.oxygen.tasks;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel keyed on ticks.
+ * Each slot holds a doubly linked list of timers whose deadline maps to it;
+ * advancing one tick only visits the current slot, so the cost of a tick
+ * follows the number of due timers rather than the number of scheduled ones.
+ * Deadlines further away than one revolution simply stay in their slot until
+ * the wheel comes around to the right tick. Not thread-safe.
+ *
+ * @param <T> Value carried by each timer
+ */
+public class TimingWheel<T> {
+    private final Timer<T>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates a wheel
+     * @param slotCount Number of slots, rounded up to a power of two
+     * @param startTick Tick the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(int slotCount, long startTick) {
+        int capacity = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = (Timer<T>[]) new Timer[capacity];
+        this.mask = capacity - 1;
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Creates a timer for a value. The timer is not scheduled yet.
+     * @param value The value passed to the callback when the timer fires
+     * @return Reusable timer handle
+     */
+    public Timer<T> newTimer(T value) {
+        return new Timer<>(value);
+    }
+
+    /**
+     * Schedules or moves a timer. A deadline that already passed fires on the next tick.
+     * @param timer The timer
+     * @param deadline Tick to fire at
+     */
+    public void schedule(Timer<T> timer, long deadline) {
+        cancel(timer);
+
+        timer.deadline = Math.max(deadline, currentTick + 1);
+        int slot = (int) (timer.deadline & mask);
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[slot] = timer;
+        size++;
+    }
+
+    /**
+     * Removes a timer from the wheel if scheduled
+     * @param timer The timer
+     */
+    public void cancel(Timer<T> timer) {
+        if (timer.slot < 0) {
+            return;
+        }
+
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+
+        timer.prev = null;
+        timer.next = null;
+        timer.slot = -1;
+        size--;
+    }
+
+    /**
+     * Moves the wheel forward by one tick and fires every timer due at the new tick.
+     * Fired timers are unscheduled before the callback, which may schedule them again.
+     * @param onDue Callback for each due value
+     * @return The tick that was processed
+     */
+    public long advance(Consumer<T> onDue) {
+        long tick = ++currentTick;
+        int slot = (int) (tick & mask);
+
+        Timer<T> timer = slots[slot];
+        while (timer != null) {
+            // Read next first: the callback may reschedule this timer into the same slot
+            Timer<T> next = timer.next;
+            if (timer.deadline <= tick) {
+                cancel(timer);
+                onDue.accept(timer.value);
+
+                // The callback moved the next timer away; fired timers are never due again this tick,
+                // so restarting from the head of the slot is safe
+                if (next != null && next.slot != slot) {
+                    next = slots[slot];
+                }
+            }
+            timer = next;
+        }
+        return tick;
+    }
+
+    /**
+     * Gets the last processed tick
+     * @return Current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of scheduled timers
+     * @return Timer count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Handle for a value scheduled on the wheel. Reused across reschedules.
+     */
+    public static final class Timer<T> {
+        private final T value;
+        private long deadline;
+        private int slot = -1;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+}
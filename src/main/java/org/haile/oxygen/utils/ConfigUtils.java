@@ -1,14 +1,28 @@
 package org.haile.oxygen.utils;
 
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
 import org.bukkit.Sound;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+import org.haile.oxygen.models.EffectTier;
+import org.haile.oxygen.models.EquipmentModifier;
 import org.haile.oxygen.models.WarningLevel;
+import org.haile.oxygen.regions.OxygenRegion;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -16,6 +30,18 @@ import java.util.logging.Logger;
  * Updated to support custom sounds from resource packs
  */
 public class ConfigUtils {
+    // Bukkit's old effect names that differ from their registry keys
+    private static final Map<String, String> LEGACY_EFFECT_NAMES = Map.of(
+            "slow", "slowness",
+            "fast_digging", "haste",
+            "slow_digging", "mining_fatigue",
+            "increase_damage", "strength",
+            "heal", "instant_health",
+            "harm", "instant_damage",
+            "jump", "jump_boost",
+            "confusion", "nausea",
+            "damage_resistance", "resistance");
+
     /**
      * Loads BarColor from configuration
      *
@@ -167,4 +193,240 @@ public class ConfigUtils {
 
         return warningLevels;
     }
-}
\ No newline at end of file
+
+    /**
+     * Loads equipment modifiers from configuration
+     *
+     * @param config Plugin configuration
+     * @param logger Logger for warnings
+     * @return List of equipment modifiers
+     */
+    public static List<EquipmentModifier> loadEquipmentModifiers(FileConfiguration config, Logger logger) {
+        List<EquipmentModifier> modifiers = new ArrayList<>();
+
+        ConfigurationSection modifiersSection = config.getConfigurationSection("equipment-modifiers");
+        if (modifiersSection == null) {
+            return modifiers;
+        }
+
+        for (String key : modifiersSection.getKeys(false)) {
+            ConfigurationSection modifierSection = modifiersSection.getConfigurationSection(key);
+            if (modifierSection == null) continue;
+
+            if (!modifierSection.getBoolean("enabled", true)) continue;
+
+            Material material = null;
+            String materialName = modifierSection.getString("material");
+            if (materialName != null) {
+                material = Material.matchMaterial(materialName);
+                if (material == null) {
+                    if (logger != null) {
+                        logger.warning("Invalid material in equipment modifier '" + key + "': " + materialName);
+                    }
+                    continue;
+                }
+            }
+
+            Integer customModelData = modifierSection.contains("custom-model-data")
+                    ? modifierSection.getInt("custom-model-data") : null;
+
+            NamespacedKey pdcKey = null;
+            String pdcKeyName = modifierSection.getString("pdc-key");
+            if (pdcKeyName != null) {
+                pdcKey = NamespacedKey.fromString(pdcKeyName.toLowerCase());
+                if (pdcKey == null) {
+                    if (logger != null) {
+                        logger.warning("Invalid pdc-key in equipment modifier '" + key + "': " + pdcKeyName);
+                    }
+                    continue;
+                }
+            }
+
+            if (material == null && customModelData == null && pdcKey == null) {
+                if (logger != null) {
+                    logger.warning("Equipment modifier '" + key + "' needs a material, custom-model-data or pdc-key");
+                }
+                continue;
+            }
+
+            Set<EquipmentSlot> slots = EnumSet.noneOf(EquipmentSlot.class);
+            List<String> slotNames = modifierSection.getStringList("slots");
+            for (String slotName : slotNames) {
+                try {
+                    slots.add(EquipmentSlot.valueOf(slotName.toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    if (logger != null) {
+                        logger.warning("Invalid slot in equipment modifier '" + key + "': " + slotName);
+                    }
+                }
+            }
+            if (slots.isEmpty()) {
+                // Default to armor slots
+                slots.addAll(EnumSet.of(EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET));
+            }
+
+            double multiplier = Math.max(0.0, modifierSection.getDouble("multiplier", 1.0));
+            modifiers.add(new EquipmentModifier(key, material, customModelData, pdcKey, slots, multiplier));
+        }
+
+        if (logger != null) {
+            logger.info("Loaded " + modifiers.size() + " equipment modifiers");
+        }
+
+        return modifiers;
+    }
+
+    /**
+     * Loads the low oxygen effect tiers from config
+     * Each effect is written as "TYPE:amplifier", e.g. "SLOW:1"
+     *
+     * @param config Plugin configuration
+     * @param logger Logger for warnings
+     * @return Tiers sorted from the lowest threshold up, so the most severe matching tier comes first
+     */
+    public static List<EffectTier> loadEffectTiers(FileConfiguration config, Logger logger) {
+        List<EffectTier> tiers = new ArrayList<>();
+
+        ConfigurationSection tiersSection = config.getConfigurationSection("low-oxygen-effects.tiers");
+        if (tiersSection == null) {
+            return tiers;
+        }
+
+        for (String key : tiersSection.getKeys(false)) {
+            ConfigurationSection tierSection = tiersSection.getConfigurationSection(key);
+            if (tierSection == null) continue;
+
+            if (!tierSection.getBoolean("enabled", true)) continue;
+
+            int below = tierSection.getInt("below", 0);
+            if (below <= 0) {
+                if (logger != null) {
+                    logger.warning("Effect tier '" + key + "' needs a positive 'below' level");
+                }
+                continue;
+            }
+            int duration = Math.max(2, tierSection.getInt("duration", 100));
+
+            List<PotionEffect> effects = new ArrayList<>();
+            for (String entry : tierSection.getStringList("effects")) {
+                String[] parts = entry.split(":", 2);
+                PotionEffectType type = getEffectType(parts[0]);
+                if (type == null) {
+                    if (logger != null) {
+                        logger.warning("Invalid effect in tier '" + key + "': " + entry);
+                    }
+                    continue;
+                }
+
+                int amplifier = 0;
+                if (parts.length > 1) {
+                    try {
+                        amplifier = Math.max(0, Integer.parseInt(parts[1].trim()));
+                    } catch (NumberFormatException e) {
+                        if (logger != null) {
+                            logger.warning("Invalid amplifier in tier '" + key + "': " + entry);
+                        }
+                    }
+                }
+                effects.add(new PotionEffect(type, duration, amplifier, false, false, false));
+            }
+
+            tiers.add(new EffectTier(key, below, duration, effects.toArray(new PotionEffect[0])));
+        }
+
+        tiers.sort(Comparator.comparingInt(EffectTier::getBelowLevel));
+
+        if (logger != null) {
+            logger.info("Loaded " + tiers.size() + " low oxygen effect tiers");
+        }
+
+        return tiers;
+    }
+
+    /**
+     * Looks up a potion effect by its key, e.g. slowness, or by its old Bukkit name, e.g. SLOW
+     * @param name Effect name from config
+     * @return The effect type, or null if unknown
+     */
+    private static PotionEffectType getEffectType(String name) {
+        String key = name.trim().toLowerCase();
+        key = LEGACY_EFFECT_NAMES.getOrDefault(key, key);
+        try {
+            return Registry.EFFECT.get(NamespacedKey.minecraft(key));
+        } catch (IllegalArgumentException e) {
+            // Not a valid key, e.g. contains spaces
+            return null;
+        }
+    }
+
+    /**
+     * Loads the cuboid regions under regions.cuboids
+     * @param config The configuration
+     * @param logger Logger for invalid entries, may be null
+     * @return Regions grouped by world name
+     */
+    public static Map<String, List<OxygenRegion>> loadCuboidRegions(FileConfiguration config, Logger logger) {
+        Map<String, List<OxygenRegion>> regions = new HashMap<>();
+
+        ConfigurationSection cuboidsSection = config.getConfigurationSection("regions.cuboids");
+        if (cuboidsSection == null) {
+            return regions;
+        }
+
+        int count = 0;
+        for (String key : cuboidsSection.getKeys(false)) {
+            ConfigurationSection cuboidSection = cuboidsSection.getConfigurationSection(key);
+            if (cuboidSection == null) continue;
+
+            String world = cuboidSection.getString("world");
+            int[] min = parseBlockPosition(cuboidSection.getString("min"));
+            int[] max = parseBlockPosition(cuboidSection.getString("max"));
+            if (world == null || min == null || max == null) {
+                if (logger != null) {
+                    logger.warning("Cuboid region '" + key + "' needs a world and min/max as \"x,y,z\"");
+                }
+                continue;
+            }
+
+            Boolean oxygenZone = cuboidSection.contains("oxygen-zone") ? cuboidSection.getBoolean("oxygen-zone") : null;
+            Double refillRate = cuboidSection.contains("refill-rate") ? cuboidSection.getDouble("refill-rate") : null;
+            Double multiplier = cuboidSection.contains("consumption-multiplier")
+                    ? cuboidSection.getDouble("consumption-multiplier") : null;
+            // A cuboid without settings is a plain oxygen zone, like a spaceship region
+            if (oxygenZone == null && refillRate == null && multiplier == null) {
+                oxygenZone = Boolean.TRUE;
+            }
+
+            regions.computeIfAbsent(world, name -> new ArrayList<>()).add(new OxygenRegion(key,
+                    min[0], min[1], min[2], max[0], max[1], max[2], cuboidSection.getInt("priority", 0),
+                    oxygenZone, refillRate, multiplier));
+            count++;
+        }
+
+        if (logger != null) {
+            logger.info("Loaded " + count + " cuboid regions");
+        }
+
+        return regions;
+    }
+
+    /**
+     * Parses a block position written as "x,y,z"
+     * @return The coordinates, or null if invalid
+     */
+    private static int[] parseBlockPosition(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -19,8 +19,19 @@ public class WorldUtils {
      * @return True if player is in an allowed world
      */
     public static boolean isPlayerInAllowedWorld(Player player, Set<String> allowedWorlds, boolean isWhitelist) {
-        String worldName = player.getWorld().getName().toLowerCase();
-        return isWhitelist == allowedWorlds.contains(worldName);
+        return isAllowedWorld(player.getWorld().getName(), allowedWorlds, isWhitelist);
+    }
+
+    /**
+     * Checks if a world name is allowed
+     *
+     * @param worldName World name
+     * @param allowedWorlds Set of allowed world names (lowercase)
+     * @param isWhitelist Whether the allowed worlds list is a whitelist
+     * @return True if the world is allowed
+     */
+    public static boolean isAllowedWorld(String worldName, Set<String> allowedWorlds, boolean isWhitelist) {
+        return isWhitelist == allowedWorlds.contains(worldName.toLowerCase());
     }
 
     /**
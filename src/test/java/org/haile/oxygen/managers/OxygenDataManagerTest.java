@@ -0,0 +1,82 @@
+package org.haile.oxygen.managers;
+
+import org.haile.oxygen.Oxygen;
+import org.haile.oxygen.models.ConfigSettings;
+import org.haile.oxygen.models.OxygenRecord;
+import org.haile.oxygen.storage.H2StorageBackend;
+import org.haile.oxygen.storage.JournalStorageBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class OxygenDataManagerTest {
+    private static final Logger LOGGER = Logger.getLogger("OxygenDataManagerTest");
+
+    @TempDir
+    File dataFolder;
+
+    @Test
+    void migrationAfterAFailedReloadReusesTheLiveBackend() {
+        // Players to copy into the journal
+        List<OxygenRecord> copied = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            copied.add(new OxygenRecord(UUID.randomUUID(), null, 50 + i, 1000L + i));
+        }
+        H2StorageBackend source = new H2StorageBackend(LOGGER, Runnable::run, new File(dataFolder, "playerdata"),
+                "oxygen_");
+        source.init().join();
+        source.saveMany(copied).join();
+        source.close().join();
+
+        Oxygen plugin = mock(Oxygen.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(LOGGER);
+        when(plugin.getOxygenManager()).thenReturn(mock(OxygenPlayerManager.class));
+        ConfigSettings configSettings = spy(new ConfigSettings());
+        when(configSettings.getStorageType()).thenReturn("journal");
+
+        OxygenDataManager manager = new OxygenDataManager(plugin, configSettings);
+        manager.loadRecordAsync(UUID.randomUUID()).join();
+
+        // A directory where the slot file belongs, so the reloaded backend cannot open
+        assertTrue(new File(dataFolder, "playerdata.slots").mkdirs());
+        when(configSettings.getStorageType()).thenReturn("mapped");
+        manager.reloadData().join();
+        assertEquals("journal", manager.getBackend().getName().toLowerCase());
+
+        // The journal is still live, so the migration must write through it
+        assertEquals(10L, manager.migrate("h2", "journal", true, null).join());
+        UUID later = UUID.randomUUID();
+        manager.saveOxygenLevels(List.of(new OxygenRecord(later, null, 5, 2000L))).join();
+        manager.shutdown(5000L);
+
+        JournalStorageBackend reopened = new JournalStorageBackend(LOGGER, Runnable::run,
+                new File(dataFolder, "journal"), 100000L);
+        reopened.init().join();
+        List<UUID> ids = new ArrayList<>();
+        for (OxygenRecord record : copied) {
+            ids.add(record.getPlayerId());
+        }
+        ids.add(later);
+        Map<UUID, OxygenRecord> loaded = reopened.loadMany(ids).join();
+        reopened.close().join();
+
+        // A second appender on the same journal would have its records overwritten by the live one
+        assertEquals(11, loaded.size());
+        for (OxygenRecord record : copied) {
+            assertEquals(record.getOxygenLevel(), loaded.get(record.getPlayerId()).getOxygenLevel());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.haile.oxygen.regions;
+
+import org.bukkit.World;
+import org.haile.oxygen.models.OxygenZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegionIndexTest {
+    private final UUID worldId = UUID.randomUUID();
+    private World world;
+    private InMemoryRegionProvider provider;
+    private RegionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        world = mock(World.class);
+        when(world.getUID()).thenReturn(worldId);
+        provider = new InMemoryRegionProvider();
+        index = new RegionIndex(provider);
+    }
+
+    private static OxygenRegion cuboid(String id, int x1, int y1, int z1, int x2, int y2, int z2, int priority,
+                                       Boolean oxygenZone, Double refillRate, Double multiplier) {
+        return new OxygenRegion(id, x1, y1, z1, x2, y2, z2, priority, oxygenZone, refillRate, multiplier);
+    }
+
+    private OxygenZone lookup(int x, int y, int z) {
+        return index.lookup(worldId, x, y, z);
+    }
+
+    @Test
+    void singleRegionUsesItsOwnSettings() {
+        provider.addRegion(worldId, cuboid("ship", 0, 0, 0, 10, 10, 10, 0, true, 2.0, 0.5));
+        index.refresh(world);
+
+        OxygenZone zone = lookup(5, 5, 5);
+        assertTrue(zone.isOxygenZone());
+        assertEquals(2.0, zone.getRefillPerSecond());
+        assertEquals(0.5, zone.getConsumptionMultiplier());
+        assertSame(OxygenZone.NONE, lookup(11, 5, 5));
+        assertSame(OxygenZone.NONE, lookup(5, 11, 5));
+    }
+
+    @Test
+    void eachSettingComesFromTheHighestPriorityRegionThatSetsIt() {
+        provider.addRegion(worldId, cuboid("station", 0, 0, 0, 31, 31, 31, 0, true, 2.0, 0.5));
+        // Airlock only overrides the zone flag
+        provider.addRegion(worldId, cuboid("airlock", 4, 4, 4, 6, 6, 6, 10, false, null, null));
+        // Medbay only overrides the refill rate, at a priority between the two
+        provider.addRegion(worldId, cuboid("medbay", 5, 5, 5, 8, 8, 8, 5, null, 6.0, null));
+        index.refresh(world);
+
+        OxygenZone inAll = lookup(5, 5, 5);
+        assertFalse(inAll.isOxygenZone());
+        assertEquals(6.0, inAll.getRefillPerSecond());
+        assertEquals(0.5, inAll.getConsumptionMultiplier());
+
+        OxygenZone inMedbay = lookup(8, 8, 8);
+        assertTrue(inMedbay.isOxygenZone());
+        assertEquals(6.0, inMedbay.getRefillPerSecond());
+
+        OxygenZone inStation = lookup(20, 20, 20);
+        assertTrue(inStation.isOxygenZone());
+        assertEquals(2.0, inStation.getRefillPerSecond());
+    }
+
+    @Test
+    void settingsNoRegionSetsFallBackToDefaults() {
+        provider.addRegion(worldId, cuboid("a", 0, 0, 0, 10, 10, 10, 0, null, null, 2.0));
+        provider.addRegion(worldId, cuboid("b", 0, 0, 0, 10, 10, 10, 1, null, null, null));
+        index.refresh(world);
+
+        OxygenZone zone = lookup(1, 1, 1);
+        assertFalse(zone.isOxygenZone());
+        assertEquals(0.0, zone.getRefillPerSecond());
+        assertEquals(2.0, zone.getConsumptionMultiplier());
+    }
+
+    @Test
+    void regionsSpanChunksOnBothSidesOfTheOrigin() {
+        provider.addRegion(worldId, cuboid("big", -40, 0, -40, 40, 10, 40, 0, true, null, null));
+        index.refresh(world);
+
+        assertTrue(lookup(-40, 0, -40).isOxygenZone());
+        assertTrue(lookup(-1, 5, 17).isOxygenZone());
+        assertTrue(lookup(40, 10, 40).isOxygenZone());
+        assertFalse(lookup(-41, 5, 0).isOxygenZone());
+        assertFalse(lookup(0, 5, 41).isOxygenZone());
+    }
+
+    @Test
+    void nonCuboidRegionsUseTheirExactCheck() {
+        // Only the diagonal half of the bounding box
+        provider.addRegion(worldId, new OxygenRegion("wedge", 0, 0, 0, 15, 15, 15, 0, true, null, null) {
+            @Override
+            public boolean isCuboid() {
+                return false;
+            }
+
+            @Override
+            public boolean contains(int x, int y, int z) {
+                return x >= z;
+            }
+        });
+        index.refresh(world);
+
+        assertTrue(lookup(10, 0, 2).isOxygenZone());
+        assertFalse(lookup(2, 0, 10).isOxygenZone());
+        // Never asked outside the bounds
+        assertFalse(lookup(20, 0, 2).isOxygenZone());
+    }
+
+    @Test
+    void refreshOnlyRebuildsWhenRegionsChanged() {
+        provider.addRegion(worldId, cuboid("ship", 0, 0, 0, 10, 10, 10, 0, true, null, null));
+        assertTrue(index.refresh(world));
+        assertFalse(index.refresh(world));
+        assertEquals(1, index.size());
+
+        provider.removeRegion(worldId, "ship");
+        assertTrue(index.refresh(world));
+        assertFalse(lookup(5, 5, 5).isOxygenZone());
+        assertEquals(0, index.size());
+
+        index.invalidate();
+        assertTrue(index.refresh(world));
+    }
+
+    @Test
+    void retainDropsWorldsThatAreNoLongerLoaded() {
+        provider.addRegion(worldId, cuboid("ship", 0, 0, 0, 10, 10, 10, 0, true, null, null));
+        index.refresh(world);
+
+        index.retain(List.of());
+
+        assertFalse(lookup(5, 5, 5).isOxygenZone());
+        // Forgotten, so it is built again once the world is back
+        assertTrue(index.refresh(world));
+        assertTrue(lookup(5, 5, 5).isOxygenZone());
+    }
+}
@@ -0,0 +1,155 @@
+package org.haile.oxygen.rooms;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomFloodFillTest {
+    private static final int MIN_Y = -64;
+    private static final int MAX_Y = 320;
+    private static final Material GENERATOR = Material.BEACON;
+
+    // Every block not listed is air
+    private final Map<Long, Material> blocks = new HashMap<>();
+
+    private static long blockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    private void set(int x, int y, int z, Material type) {
+        blocks.put(blockKey(x, y, z), type);
+    }
+
+    /**
+     * Builds a hollow box of stone; the air inside spans min to max on each axis
+     */
+    private void box(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int x = minX - 1; x <= maxX + 1; x++) {
+            for (int y = minY - 1; y <= maxY + 1; y++) {
+                for (int z = minZ - 1; z <= maxZ + 1; z++) {
+                    boolean inside = x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+                    if (!inside) {
+                        set(x, y, z, Material.STONE);
+                    }
+                }
+            }
+        }
+    }
+
+    private RoomFloodFill fill(int gx, int gy, int gz, int radius, int maxVolume) {
+        return fill(gx, gy, gz, radius, maxVolume, MIN_Y, MAX_Y);
+    }
+
+    private RoomFloodFill fill(int gx, int gy, int gz, int radius, int maxVolume, int minY, int maxY) {
+        // Same chunk area SealedRoomManager snapshots
+        int minChunkX = (gx - radius - 1) >> 4;
+        int minChunkZ = (gz - radius - 1) >> 4;
+        int span = Math.max(((gx + radius + 1) >> 4) - minChunkX, ((gz + radius + 1) >> 4) - minChunkZ) + 1;
+
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[span * span];
+        for (int column = 0; column < span; column++) {
+            for (int row = 0; row < span; row++) {
+                int baseX = (minChunkX + column) << 4;
+                int baseZ = (minChunkZ + row) << 4;
+                ChunkSnapshot snapshot = mock(ChunkSnapshot.class);
+                when(snapshot.getBlockType(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> blocks.getOrDefault(
+                        blockKey(baseX + (int) invocation.getArgument(0), invocation.getArgument(1),
+                                baseZ + (int) invocation.getArgument(2)), Material.AIR));
+                snapshots[column * span + row] = snapshot;
+            }
+        }
+        return RoomFloodFill.fill(snapshots, minChunkX, minChunkZ, span, minY, maxY, gx, gy, gz,
+                GENERATOR, radius, maxVolume);
+    }
+
+    @Test
+    void sealedBoxIsOneRoom() {
+        // 5x5x5 of air across four chunks, with the generator in the middle
+        box(-2, 62, -2, 2, 66, 2);
+        set(0, 64, 0, GENERATOR);
+
+        RoomFloodFill result = fill(0, 64, 0, 8, 1000);
+
+        assertEquals(RoomFloodFill.Outcome.SEALED, result.getOutcome());
+        PressurizedVolume volume = result.getVolume();
+        assertEquals(124, volume.getBlockCount());
+        assertTrue(volume.contains(-2, 62, -2));
+        assertTrue(volume.contains(2, 66, 2));
+        assertFalse(volume.contains(0, 64, 0));
+        assertFalse(volume.contains(3, 64, 0));
+        // A wall block next to the air, and one that is not
+        assertTrue(volume.touches(3, 64, 0));
+        assertFalse(volume.touches(3, 67, 3));
+    }
+
+    @Test
+    void holeInTheWallLeaks() {
+        box(-2, 62, -2, 2, 66, 2);
+        set(0, 64, 0, GENERATOR);
+        set(3, 64, 0, Material.AIR);
+
+        RoomFloodFill result = fill(0, 64, 0, 8, 1000);
+
+        assertEquals(RoomFloodFill.Outcome.LEAKING, result.getOutcome());
+        assertNull(result.getVolume());
+    }
+
+    @Test
+    void roomAboveTheMaximumVolumeLeaks() {
+        box(-2, 62, -2, 2, 66, 2);
+        set(0, 64, 0, GENERATOR);
+
+        assertEquals(RoomFloodFill.Outcome.LEAKING, fill(0, 64, 0, 8, 123).getOutcome());
+        assertEquals(RoomFloodFill.Outcome.SEALED, fill(0, 64, 0, 8, 124).getOutcome());
+    }
+
+    @Test
+    void roomWiderThanTheRadiusLeaks() {
+        box(-2, 62, -2, 2, 66, 2);
+        set(0, 64, 0, GENERATOR);
+
+        assertEquals(RoomFloodFill.Outcome.LEAKING, fill(0, 64, 0, 1, 1000).getOutcome());
+        // Walls just outside the radius still seal the room
+        assertEquals(RoomFloodFill.Outcome.SEALED, fill(0, 64, 0, 2, 1000).getOutcome());
+    }
+
+    @Test
+    void missingGeneratorIsReported() {
+        box(-2, 62, -2, 2, 66, 2);
+
+        RoomFloodFill result = fill(0, 64, 0, 8, 1000);
+
+        assertEquals(RoomFloodFill.Outcome.NO_GENERATOR, result.getOutcome());
+        assertNull(result.getVolume());
+    }
+
+    @Test
+    void walledInGeneratorLeaks() {
+        box(0, 64, 0, 0, 64, 0);
+        set(0, 64, 0, GENERATOR);
+
+        assertEquals(RoomFloodFill.Outcome.LEAKING, fill(0, 64, 0, 8, 1000).getOutcome());
+    }
+
+    @Test
+    void airReachingTheBottomOfTheWorldLeaks() {
+        // The floor would be below the world
+        box(-2, MIN_Y, -2, 2, MIN_Y + 4, 2);
+        set(0, MIN_Y + 2, 0, GENERATOR);
+
+        assertEquals(RoomFloodFill.Outcome.LEAKING, fill(0, MIN_Y + 2, 0, 8, 1000).getOutcome());
+        // In a world one block deeper the floor is part of it
+        assertEquals(RoomFloodFill.Outcome.SEALED, fill(0, MIN_Y + 2, 0, 8, 1000, MIN_Y - 1, MAX_Y).getOutcome());
+    }
+}
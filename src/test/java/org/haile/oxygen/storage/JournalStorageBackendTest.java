@@ -0,0 +1,133 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalStorageBackendTest {
+    private static final Logger LOGGER = Logger.getLogger("JournalStorageBackendTest");
+
+    @TempDir
+    File directory;
+
+    private JournalStorageBackend open(long compactAfterRecords) {
+        // Direct executor: every operation runs on the test thread
+        JournalStorageBackend backend = new JournalStorageBackend(LOGGER, Runnable::run, directory, compactAfterRecords);
+        backend.init().join();
+        return backend;
+    }
+
+    private Path journal() {
+        return directory.toPath().resolve("oxygen.journal");
+    }
+
+    @Test
+    void replayRestoresTheLatestLevelOfEachPlayer() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        JournalStorageBackend backend = open(1000);
+        backend.saveMany(Arrays.asList(new OxygenRecord(first, null, 80, 1000L),
+                new OxygenRecord(second, null, 60, 1000L))).join();
+        backend.saveMany(List.of(new OxygenRecord(first, null, 25, 2000L))).join();
+        backend.close().join();
+
+        JournalStorageBackend reopened = open(1000);
+        Map<UUID, OxygenRecord> loaded = reopened.loadMany(Arrays.asList(first, second)).join();
+        reopened.close().join();
+
+        assertEquals(25, loaded.get(first).getOxygenLevel());
+        assertEquals(2000L, loaded.get(first).getUpdatedAt());
+        assertEquals(60, loaded.get(second).getOxygenLevel());
+    }
+
+    @Test
+    void tornTailIsCutOffAndAppendsContinueOnARecordBoundary() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        JournalStorageBackend backend = open(1000);
+        backend.saveMany(List.of(new OxygenRecord(first, null, 70, 1000L))).join();
+        backend.close().join();
+
+        // A crash halfway through the next append
+        Files.write(journal(), new byte[JournalStorageBackend.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+        JournalStorageBackend reopened = open(1000);
+        assertEquals(JournalStorageBackend.RECORD_SIZE, Files.size(journal()));
+        assertEquals(70, reopened.loadMany(List.of(first)).join().get(first).getOxygenLevel());
+        reopened.saveMany(List.of(new OxygenRecord(second, null, 40, 2000L))).join();
+        reopened.close().join();
+
+        JournalStorageBackend again = open(1000);
+        Map<UUID, OxygenRecord> loaded = again.loadMany(Arrays.asList(first, second)).join();
+        again.close().join();
+
+        assertEquals(70, loaded.get(first).getOxygenLevel());
+        assertEquals(40, loaded.get(second).getOxygenLevel());
+    }
+
+    @Test
+    void replayStopsAtACorruptRecord() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        JournalStorageBackend backend = open(1000);
+        backend.saveMany(List.of(new OxygenRecord(first, null, 70, 1000L))).join();
+        backend.saveMany(List.of(new OxygenRecord(second, null, 40, 2000L))).join();
+        backend.close().join();
+
+        // Flip a bit in the level of the second record
+        try (RandomAccessFile file = new RandomAccessFile(journal().toFile(), "rw")) {
+            long position = JournalStorageBackend.RECORD_SIZE + 16;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 1);
+        }
+
+        JournalStorageBackend reopened = open(1000);
+        Map<UUID, OxygenRecord> loaded = reopened.loadMany(Arrays.asList(first, second)).join();
+        reopened.close().join();
+
+        assertEquals(70, loaded.get(first).getOxygenLevel());
+        assertFalse(loaded.containsKey(second));
+        assertEquals(JournalStorageBackend.RECORD_SIZE, Files.size(journal()));
+    }
+
+    @Test
+    void compactionKeepsEveryPlayer() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        JournalStorageBackend backend = open(2);
+        backend.saveMany(List.of(new OxygenRecord(first, null, 10, 1000L))).join();
+        backend.saveMany(List.of(new OxygenRecord(second, null, 20, 1000L))).join();
+        backend.saveMany(List.of(new OxygenRecord(third, null, 30, 1000L))).join();
+        // Waits for the compactor
+        backend.close().join();
+
+        assertTrue(Files.exists(directory.toPath().resolve("oxygen.snapshot")));
+        assertFalse(Files.exists(directory.toPath().resolve("oxygen.journal.old")));
+
+        JournalStorageBackend reopened = open(2);
+        Map<UUID, OxygenRecord> loaded = reopened.loadMany(Arrays.asList(first, second, third)).join();
+        reopened.close().join();
+
+        assertEquals(10, loaded.get(first).getOxygenLevel());
+        assertEquals(20, loaded.get(second).getOxygenLevel());
+        assertEquals(30, loaded.get(third).getOxygenLevel());
+    }
+}
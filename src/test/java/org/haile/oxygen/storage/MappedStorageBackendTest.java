@@ -0,0 +1,134 @@
+package org.haile.oxygen.storage;
+
+import org.haile.oxygen.models.OxygenRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedStorageBackendTest {
+    private static final Logger LOGGER = Logger.getLogger("MappedStorageBackendTest");
+    // Header and slots are 32 bytes each
+    private static final int SLOT_SIZE = 32;
+
+    @TempDir
+    File directory;
+
+    private MappedStorageBackend open() {
+        // Direct executor: every operation runs on the test thread. 1024 is the smallest capacity
+        MappedStorageBackend backend = new MappedStorageBackend(LOGGER, Runnable::run,
+                new File(directory, "playerdata.slots"), 1024);
+        backend.init().join();
+        return backend;
+    }
+
+    private static List<OxygenRecord> players(int count, int level) {
+        List<OxygenRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new OxygenRecord(UUID.randomUUID(), null, level, 1000L + i));
+        }
+        return records;
+    }
+
+    private static List<UUID> ids(List<OxygenRecord> records) {
+        List<UUID> ids = new ArrayList<>();
+        for (OxygenRecord record : records) {
+            ids.add(record.getPlayerId());
+        }
+        return ids;
+    }
+
+    @Test
+    void updatesKeepOneSlotPerPlayer() {
+        UUID playerId = UUID.randomUUID();
+        MappedStorageBackend backend = open();
+        backend.saveMany(List.of(new OxygenRecord(playerId, null, 80, 1000L))).join();
+        backend.saveMany(List.of(new OxygenRecord(playerId, null, 30, 2000L))).join();
+        backend.close().join();
+
+        MappedStorageBackend reopened = open();
+        OxygenRecord loaded = reopened.loadMany(List.of(playerId)).join().get(playerId);
+        StoragePage page = reopened.scan(null, 100).join();
+        reopened.close().join();
+
+        assertEquals(30, loaded.getOxygenLevel());
+        assertEquals(2000L, loaded.getUpdatedAt());
+        assertEquals(1, page.getRecords().size());
+    }
+
+    @Test
+    void tableGrowsPastItsLoadFactorWithoutLosingPlayers() {
+        MappedStorageBackend backend = open();
+        // 700 fit in 1024 slots, the next batch pushes the table past 0.7
+        List<OxygenRecord> first = players(700, 50);
+        List<OxygenRecord> second = players(300, 60);
+        backend.saveMany(first).join();
+        backend.saveMany(second).join();
+        backend.close().join();
+
+        File table = new File(directory, "playerdata.slots");
+        assertEquals(SLOT_SIZE + 2048L * SLOT_SIZE, table.length());
+
+        MappedStorageBackend reopened = open();
+        Map<UUID, OxygenRecord> loadedFirst = reopened.loadMany(ids(first)).join();
+        Map<UUID, OxygenRecord> loadedSecond = reopened.loadMany(ids(second)).join();
+        reopened.close().join();
+
+        assertEquals(700, loadedFirst.size());
+        assertEquals(300, loadedSecond.size());
+        for (OxygenRecord record : first) {
+            assertEquals(record.getUpdatedAt(), loadedFirst.get(record.getPlayerId()).getUpdatedAt());
+        }
+        assertTrue(loadedSecond.values().stream().allMatch(record -> record.getOxygenLevel() == 60));
+    }
+
+    @Test
+    void newPlayersSharingAProbeChainInOneBatchGetTheirOwnSlots() {
+        MappedStorageBackend backend = open();
+        // Enough players in a single batch that several hash to the same slot
+        List<OxygenRecord> records = players(600, 40);
+        backend.saveMany(records).join();
+
+        Map<UUID, OxygenRecord> loaded = backend.loadMany(ids(records)).join();
+        backend.close().join();
+
+        assertEquals(600, loaded.size());
+        for (OxygenRecord record : records) {
+            assertEquals(record.getUpdatedAt(), loaded.get(record.getPlayerId()).getUpdatedAt());
+        }
+    }
+
+    @Test
+    void scanRestartsWhenTheTableGrewBetweenPages() {
+        MappedStorageBackend backend = open();
+        List<OxygenRecord> records = players(500, 50);
+        backend.saveMany(records).join();
+
+        StoragePage first = backend.scan(null, 100).join();
+        backend.saveMany(players(400, 50)).join();
+
+        // Slots moved, so the old cursor starts over and every player is still reached
+        Set<UUID> seen = new HashSet<>();
+        String cursor = first.getNextCursor();
+        do {
+            StoragePage page = backend.scan(cursor, 100).join();
+            for (OxygenRecord record : page.getRecords()) {
+                seen.add(record.getPlayerId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        backend.close().join();
+
+        assertEquals(900, seen.size());
+    }
+}
@@ -0,0 +1,138 @@
+package org.haile.oxygen.storage;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.haile.oxygen.models.OxygenRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the MySQL backend against H2 in MySQL mode, so no live database is needed
+ */
+class MySqlStorageBackendTest {
+    private JdbcDataSource dataSource;
+    private MySqlStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        // Kept open between connections, dropped in tearDown
+        dataSource.setURL("jdbc:h2:mem:oxygen;MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        // Direct executor: every operation runs on the test thread
+        backend = new MySqlStorageBackend(Logger.getLogger("MySqlStorageBackendTest"), Runnable::run,
+                dataSource, "test_");
+        backend.init().join();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        backend.close().join();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS test_players");
+        }
+    }
+
+    @Test
+    void savedRecordsLoadBack() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        backend.saveMany(Arrays.asList(
+                new OxygenRecord(first, "Alice", 80, 1000L),
+                new OxygenRecord(second, "Bob", 15, 2000L))).join();
+
+        Map<UUID, OxygenRecord> loaded = backend.loadMany(Arrays.asList(first, second, UUID.randomUUID())).join();
+
+        assertEquals(2, loaded.size());
+        assertEquals("Alice", loaded.get(first).getPlayerName());
+        assertEquals(80, loaded.get(first).getOxygenLevel());
+        assertEquals(1000L, loaded.get(first).getUpdatedAt());
+        assertEquals("Bob", loaded.get(second).getPlayerName());
+        assertEquals(15, loaded.get(second).getOxygenLevel());
+        assertEquals(2000L, loaded.get(second).getUpdatedAt());
+    }
+
+    @Test
+    void savingAnExistingPlayerUpdatesTheRow() {
+        UUID playerId = UUID.randomUUID();
+        backend.saveMany(List.of(new OxygenRecord(playerId, "Alice", 80, 1000L))).join();
+        backend.saveMany(List.of(new OxygenRecord(playerId, "Alice2", 42, 3000L))).join();
+
+        OxygenRecord loaded = backend.loadMany(List.of(playerId)).join().get(playerId);
+
+        assertEquals("Alice2", loaded.getPlayerName());
+        assertEquals(42, loaded.getOxygenLevel());
+        assertEquals(3000L, loaded.getUpdatedAt());
+        assertEquals(1, backend.scan(null, 10).join().getRecords().size());
+    }
+
+    @Test
+    void loadingUnknownPlayersReturnsNothing() {
+        assertTrue(backend.loadMany(List.of(UUID.randomUUID())).join().isEmpty());
+    }
+
+    @Test
+    void scanVisitsEveryPlayerOncePageByPage() {
+        List<OxygenRecord> records = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            records.add(new OxygenRecord(UUID.randomUUID(), "Player" + i, i));
+        }
+        backend.saveMany(records).join();
+
+        Set<UUID> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            StoragePage page = backend.scan(cursor, 10).join();
+            for (OxygenRecord record : page.getRecords()) {
+                assertTrue(seen.add(record.getPlayerId()), "Player returned twice");
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(25, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void scanOfAnEmptyTableIsOneLastPage() {
+        StoragePage page = backend.scan(null, 10).join();
+
+        assertTrue(page.getRecords().isEmpty());
+        assertTrue(page.isLast());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void fullLastPageEndsWithAnEmptyPage() {
+        List<OxygenRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(new OxygenRecord(UUID.randomUUID(), "Player" + i, i));
+        }
+        backend.saveMany(records).join();
+
+        StoragePage first = backend.scan(null, 10).join();
+        assertFalse(first.isLast());
+        StoragePage second = backend.scan(first.getNextCursor(), 10).join();
+        assertTrue(second.getRecords().isEmpty());
+        assertTrue(second.isLast());
+    }
+}
@@ -0,0 +1,138 @@
+package org.haile.oxygen.tasks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static List<String> advance(TimingWheel<String> wheel, int ticks) {
+        List<String> fired = new ArrayList<>();
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance(fired::add);
+        }
+        return fired;
+    }
+
+    @Test
+    void timerFiresOnItsDeadlineTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 100);
+        TimingWheel.Timer<String> timer = wheel.newTimer("a");
+        wheel.schedule(timer, 103);
+
+        assertTrue(advance(wheel, 2).isEmpty());
+        assertEquals(List.of("a"), advance(wheel, 1));
+        assertEquals(103, wheel.getCurrentTick());
+        assertFalse(timer.isScheduled());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void passedDeadlineFiresOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 100);
+        wheel.schedule(wheel.newTimer("late"), 50);
+
+        assertEquals(List.of("late"), advance(wheel, 1));
+    }
+
+    @Test
+    void deadlineBeyondOneRevolutionWaitsForItsTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        wheel.schedule(wheel.newTimer("far"), 20);
+
+        // Ticks 4 and 12 share the slot but are not the deadline
+        assertTrue(advance(wheel, 19).isEmpty());
+        assertEquals(List.of("far"), advance(wheel, 1));
+    }
+
+    @Test
+    void cancelledTimerNeverFires() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        TimingWheel.Timer<String> timer = wheel.newTimer("a");
+        wheel.schedule(timer, 2);
+        wheel.cancel(timer);
+        wheel.cancel(timer);
+
+        assertTrue(advance(wheel, 10).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedulingAgainMovesTheTimer() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        TimingWheel.Timer<String> timer = wheel.newTimer("a");
+        wheel.schedule(timer, 2);
+        wheel.schedule(timer, 5);
+
+        assertEquals(1, wheel.size());
+        assertTrue(advance(wheel, 4).isEmpty());
+        assertEquals(List.of("a"), advance(wheel, 1));
+    }
+
+    @Test
+    void callbackCanRescheduleTheFiredTimer() {
+        TimingWheel<String> wheel = new TimingWheel<>(4, 0);
+        TimingWheel.Timer<String> timer = wheel.newTimer("repeat");
+        wheel.schedule(timer, 1);
+
+        List<Long> firedAt = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            wheel.advance(value -> {
+                firedAt.add(wheel.getCurrentTick());
+                // Same slot one revolution later
+                wheel.schedule(timer, wheel.getCurrentTick() + 4);
+            });
+        }
+
+        assertEquals(List.of(1L, 5L, 9L, 13L, 17L), firedAt);
+    }
+
+    @Test
+    void callbackCanCancelAnotherDueTimerInTheSameSlot() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        TimingWheel.Timer<String> first = wheel.newTimer("first");
+        TimingWheel.Timer<String> second = wheel.newTimer("second");
+        wheel.schedule(second, 3);
+        wheel.schedule(first, 3);
+
+        List<String> fired = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            wheel.advance(value -> {
+                fired.add(value);
+                wheel.cancel(value.equals("first") ? second : first);
+            });
+        }
+
+        assertEquals(1, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void everyTimerFiresExactlyOnceAtItsDeadline() {
+        Random random = new Random(42);
+        TimingWheel<String> wheel = new TimingWheel<>(64, 0);
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + random.nextInt(500);
+            deadlines.put("t" + i, deadline);
+            wheel.schedule(wheel.newTimer("t" + i), deadline);
+        }
+
+        Map<String, Long> firedAt = new HashMap<>();
+        for (int i = 0; i < 600; i++) {
+            wheel.advance(value -> assertNull(firedAt.put(value, wheel.getCurrentTick())));
+        }
+
+        assertEquals(deadlines, firedAt);
+        assertEquals(0, wheel.size());
+    }
+}